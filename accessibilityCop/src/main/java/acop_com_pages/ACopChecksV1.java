@@ -1,13 +1,21 @@
 package acop_com_pages;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchFrameException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
@@ -69,66 +77,565 @@ import org.openqa.selenium.WebElement;
 	 * 		- Table headers should have a non empty scope attribute specifying whether it is for a row or column
 	 * 		- Use SCOPE, ROLE, HEADER, ID for screen reader
 	 * 
+	 *  ACOP 15 HEADINGS <h1>Heading 1</h1><h2>Heading 2</h2>
+	 * 		- Page must contain atleast one h1 element
+	 * 		- Headings (h1..h6) should have non empty text
+	 * 		- Heading elements that follow the h1 element should be properly nested
+	 * 
+	 *  ACOP 16 FORMS <input id='name' type='text'><label for='name'>Name</label>
+	 * 		- Every form element should have a corresponding label
+	 * 		- Form input elements of type submit|reset|button should have a non empty value attribute
+	 * 		- Labels, legends and buttons should have non empty text
+	 * 
 	 * @author asuryanarayana
 	 *
 	 */
 
 public class ACopChecksV1  {
 	
-	protected static WebDriver driver =  null;
+	protected final WebDriver driver;
 
 	Map<String, String> content = new HashMap<String, String>();
 	private static Log logger = getLog(ACopChecksV1.class);
 
-	private final String altAttribute = "alt";
-	private final String srcAttribute = "src";
-	private final String hrefAttribute = "href";
-	private final String titleAttribute = "title";
-	private final String langAttribute = "lang";
-	private final String summaryAttribute = "summary";
-	private final String roleAttribute = "role";
-	private final String scopeAttribute = "scope";
-	private final String headerAttribute = "header";
-	
-
-	private final String inputXpath = "//input[@type='image']";
-	private final String imageXpath = "//img";
-	private final String areaXpath = "//area";
-	private final String titleXpath = "//title";
-	private final String iframeXpath = "//iframe";
-	private final String frameSetXpath = "//frameset/frame";
-	private final String htmlXpath = "//html";
-	private final String hyperLinkXpath = "//a";
-	private final String tableXpath = "//table";
-	private final String tableHeaderXpath = "//table//th";
-
-	
 	private int WAIT_TO_CHECK = 500;
 	public static int MaxWaitSeconds = 2000;
 
-	public static List <String> acopErrorList = new ArrayList<String>();
+	private int presenceRetries = 0;
+	private long presenceBackoffMillis = WAIT_TO_CHECK;
+	private long presenceTimeoutMillis = 5000;
+	private long pageQuietMillis = 100;
+	private long pageReadyMaxWaitMillis = 1000;
+
+	/** findings of this instance, safe to read while checks are still adding to it */
+	private final List<AcopFinding> acopFindings = Collections.synchronizedList(new ArrayList<AcopFinding>());
+	/** serializes the audits of this instance without pinning the carrier of a waiting virtual thread */
+	private final ReentrantLock auditLock = new ReentrantLock();
+
+	/** error messages of this instance - a view of acopFindings, each message is rendered when read */
+	public final List <String> acopErrorList = new FindingMessageList(acopFindings);
+
+	private AcopRuleRegistry ruleRegistry = AcopRuleRegistry.createDefault();
+	private boolean snapshotMode = false;
+	private IncrementalAudit incrementalAudit = null;
+	private AuditResultCache resultCache = null;
+	private boolean frameAuditing = false;
+	private long frameTimeoutMillis = 5000;
+	private int maxFrameDepth = 5;
+	private MetricsSink metricsSink = null;
+	private FindingListener findingListener = null;
+	private boolean keepFindings = true;
+	/** finding listener and page url of the audit in progress, null if none is running or it has no listener */
+	private FindingListener runListener = null;
+	private String runUrl = null;
+	private boolean batchedQueries = true;
+	private long auditBudgetMillis = 0;
+	private long ruleBudgetMillis = 0;
+	/** budget of the runAcopChecks() call in progress, null if none is running or it is unbounded */
+	private TimeBudget auditBudget = null;
+	private Executor executor = null;
+	/** executor the page source rules of the audit in progress run on, null to run them in turn */
+	private Executor runExecutor = null;
+	private volatile AuditContext context = null;
+	/** true once an element count installed the page readiness observer in the current document */
+	private boolean readinessObserved = false;
 	
 	public ACopChecksV1(WebDriver driver) {
 		this.driver = driver;
 	}
 	
+	/**
+	 * Snapshot mode captures everything the checks need with one executeScript call
+	 * at the start of runAcopChecks() and evaluates every check against that copy.
+	 * Falls back to the live webdriver checks if the snapshot cannot be captured.
+	 * 
+	 * @param snapshotMode
+	 *            true to run checks against a PageSnapshot, false (default) to query webdriver per check
+	 */
+	public void setSnapshotMode(boolean snapshotMode) {
+		this.snapshotMode = snapshotMode;
+	}
+
+	public boolean isSnapshotMode() {
+		return snapshotMode;
+	}
+
+	/**
+	 * Incremental mode is meant for single page applications that are audited after
+	 * every step of a flow. The first runAcopChecks() audits the whole page and starts
+	 * tracking DOM mutations; later calls only re-check the elements that changed
+	 * since the previous call and merge the results, so acopErrorList always holds
+	 * the findings for the page as it is now (instead of accumulating every run).
+	 * Falls back to a full audit when the page cannot be tracked.
+	 * 
+	 * While incremental mode is on, the page keeps a MutationObserver
+	 * (window.__acopTracker) and a key property (__acopKey) on every audited element.
+	 * Turning it off removes both from the page the driver is on.
+	 * 
+	 * @param incrementalMode
+	 *            true to re-check only what changed, false (default) to audit the whole page on every run
+	 */
+	public void setIncrementalMode(boolean incrementalMode) {
+		auditLock.lock();
+		try {
+			if (incrementalAudit != null)
+				incrementalAudit.release();
+			this.incrementalAudit = incrementalMode ? new IncrementalAudit(this) : null;
+		} finally {
+			auditLock.unlock();
+		}
+	}
+
+	public boolean isIncrementalMode() {
+		return incrementalAudit != null;
+	}
+
+	/**
+	 * With a result cache runAcopChecks() fetches the page source first and, if the page
+	 * was already audited with the same source, url and rule set, reports the
+	 * cached findings without reading any element. Not used in incremental mode.
+	 * 
+	 * @param resultCache
+	 *            cache shared by the audits of a crawl, null (default) to audit every page
+	 */
+	public void setResultCache(AuditResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	public AuditResultCache getResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * With frame auditing runAcopChecks() also runs all rules inside the document of
+	 * every frame and iframe, depth first, and tags their findings with the frame path
+	 * (see AcopFinding.getFramePath()). The audit starts from the top level document
+	 * and leaves the driver switched to it. Each frame is entered once; a frame that
+	 * cannot be entered is skipped. If entering a frame or listing its frames does not
+	 * return within the frame timeout, frame auditing stops for the run with a timeout
+	 * warning, and the stuck call switches the driver back to the top level document
+	 * once it returns.
+	 * 
+	 * @param frameAuditing
+	 *            true to audit frame documents, false (default) to audit the top level document only
+	 */
+	public void setFrameAuditing(boolean frameAuditing) {
+		this.frameAuditing = frameAuditing;
+	}
+
+	public boolean isFrameAuditing() {
+		return frameAuditing;
+	}
+
+	/**
+	 * @param timeoutMillis
+	 *            upper bound for switching into a frame and listing its child frames
+	 * @param maxDepth
+	 *            frames nested deeper than this are not audited
+	 */
+	public void setFrameLimits(long timeoutMillis, int maxDepth) {
+		this.frameTimeoutMillis = timeoutMillis;
+		this.maxFrameDepth = maxDepth;
+	}
+
+	/**
+	 * With a metrics sink every document audited by runAcopChecks() - the page and
+	 * each audited frame - is reported to the sink with wall time, webdriver calls,
+	 * elements examined, findings and timeouts per rule. The driver calls are counted
+	 * through a WebDriverCallCounter, so metering adds a little work to every call.
+	 * Audits in incremental mode are not metered.
+	 * 
+	 * @param metricsSink
+	 *            sink the metrics are handed to, e.g. an InMemoryMetricsSink or JmxMetricsSink; null (default) for none
+	 */
+	public void setMetricsSink(MetricsSink metricsSink) {
+		this.metricsSink = metricsSink;
+	}
+
+	public MetricsSink getMetricsSink() {
+		return metricsSink;
+	}
+
+	/**
+	 * @param ruleRegistry
+	 *            rules run by runAcopChecks(), defaults to AcopRuleRegistry.createDefault()
+	 */
+	public void setRuleRegistry(AcopRuleRegistry ruleRegistry) {
+		this.ruleRegistry = ruleRegistry;
+	}
+
+	public AcopRuleRegistry getRuleRegistry() {
+		return ruleRegistry;
+	}
+
+	/**
+	 * Retry policy for element presence checks. By default a single findElements call
+	 * decides presence - an empty result means the element is absent. Pages that are
+	 * known to render late can ask for retries; the wait between attempts starts at
+	 * backoffMillis and doubles after every attempt.
+	 * 
+	 * @param retries
+	 *            additional findElements attempts after the first one returned nothing
+	 * @param backoffMillis
+	 *            wait before the first retry
+	 */
+	public void setPresenceRetries(int retries, long backoffMillis) {
+		this.presenceRetries = retries;
+		this.presenceBackoffMillis = backoffMillis;
+	}
+
+	/**
+	 * With batched queries (the default) a rule's element lookup in live mode is a
+	 * single executeScript call that returns the matching elements together with the
+	 * attributes and text their selector declares (see ElementQuery), instead of a
+	 * findElements call and a getAttribute / getText round-trip per element and
+	 * attribute. Drivers that cannot run javascript fall back to per element calls.
+	 * 
+	 * @param batchedQueries
+	 *            false to read every value from the live elements
+	 */
+	public void setBatchedQueries(boolean batchedQueries) {
+		this.batchedQueries = batchedQueries;
+	}
+
+	public boolean isBatchedQueries() {
+		return batchedQueries;
+	}
+
+	/**
+	 * With a finding listener runAcopChecks() hands every finding to the listener as
+	 * soon as a rule raises it, e.g. to a ReportWriter that streams them to a report
+	 * file. Rules that share a pass over the page hand theirs over in rule order when
+	 * the pass is done; an incremental audit hands over the merged findings of the
+	 * page once they are merged.
+	 * 
+	 * @param findingListener
+	 *            listener for the findings of every audit, null (default) for none
+	 */
+	public void setFindingListener(FindingListener findingListener) {
+		this.findingListener = findingListener;
+	}
+
+	public FindingListener getFindingListener() {
+		return findingListener;
+	}
+
+	/**
+	 * By default acopErrorList and getFindings() keep the findings of every run of this
+	 * instance. An instance that audits many pages and streams the findings to a
+	 * finding listener can drop them at the start of each run, so it only holds those
+	 * of the last run.
+	 * 
+	 * @param keepFindings
+	 *            false to clear the findings of earlier runs when a run starts
+	 */
+	public void setKeepFindings(boolean keepFindings) {
+		this.keepFindings = keepFindings;
+	}
+
+	public boolean isKeepFindings() {
+		return keepFindings;
+	}
+
+	/**
+	 * Bounds the time runAcopChecks() spends on a page. Rules check the budgets
+	 * between element lookups and element reads, and waits (presence retries, page
+	 * ready waits) never run past them. A rule that runs out of time is stopped, keeps
+	 * what it found so far and gets a timeout warning (AcopFinding.isTimeout()); once
+	 * the audit budget is used up the remaining rules and frames are not audited.
+	 * Partial results are never stored in the result cache. The re-checks of changed
+	 * elements in incremental mode are not bounded.
+	 * 
+	 * @param auditMillis
+	 *            time a runAcopChecks() call may take including frames, 0 (default) for no limit
+	 * @param ruleMillis
+	 *            time a single rule may take on a document, 0 (default) for no limit
+	 */
+	public void setTimeBudgets(long auditMillis, long ruleMillis) {
+		this.auditBudgetMillis = auditMillis;
+		this.ruleBudgetMillis = ruleMillis;
+	}
+
+	/**
+	 * @param timeoutMillis
+	 *            upper bound for a single presence check, including all retries
+	 */
+	public void setPresenceTimeout(long timeoutMillis) {
+		this.presenceTimeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Element counts wait until document.readyState is complete and the DOM has not
+	 * changed for quietMillis, but never longer than maxWaitMillis.
+	 * 
+	 * @param quietMillis
+	 *            time without DOM mutations after which the page counts as stable
+	 * @param maxWaitMillis
+	 *            upper bound for the wait
+	 */
+	public void setPageReadyWait(long quietMillis, long maxWaitMillis) {
+		this.pageQuietMillis = quietMillis;
+		this.pageReadyMaxWaitMillis = maxWaitMillis;
+	}
+	
 	
+	/**
+	 * Runs all enabled rules of the rule registry, cheapest first, against the page
+	 * currently loaded in this instance's driver. In snapshot mode the streaming
+	 * rules share a single pass over the captured elements. With frame auditing the
+	 * frame and iframe documents are audited after the page itself. State is per instance, so audits
+	 * with different drivers can run in parallel; calls on the same instance are
+	 * serialized because they share one driver. With an executor (setExecutor) the
+	 * page source rules run on it alongside the element rules.
+	 * 
+	 * @return acopErrorList of this instance
+	 */
 	public List<String> runAcopChecks () {
-		checkAltTextImageType();
-		checkAltTextInputType();
-		checkAreaAltText();
-		checkTitleText();
-		checkFrameSetText();
-		checkiFrameTitleText();
-		checkDocType();
-		checkVisualFormatting();
-		checkLanguageAttribute();
-		checkHyperLinksText();
-		checkFlashingContent();
-		checkTableAccessibility();
-		checkTableHeaders();
-		
-		return acopErrorList;		
+		auditLock.lock();
+		try {
+			runAcopChecks(executor);
+			return acopErrorList;
+		} finally {
+			auditLock.unlock();
+		}
+	}
+
+	/**
+	 * Runs runAcopChecks() on the executor (setExecutor) or, without one, on a shared
+	 * executor of virtual threads where the runtime has them and daemon threads
+	 * otherwise (see AuditExecutors). The calling thread returns at once. The page
+	 * source is read before the element rules start and the page source rules
+	 * (PageSourceRule - rules 8, 9 and 12) run on the executor alongside them; the
+	 * driver itself is only used by one thread at a time. Audits on the same instance
+	 * still run one after the other. Cancelling the future does not stop a running
+	 * audit, use setTimeBudgets for that.
+	 * 
+	 * @return future completed with a copy of the findings of this audit once it
+	 *         finished, or exceptionally with the error that ended it
+	 */
+	public CompletableFuture<List<AcopFinding>> runAcopChecksAsync() {
+		final Executor pool = executor != null ? executor : AuditExecutors.shared();
+		return CompletableFuture.supplyAsync(new Supplier<List<AcopFinding>>() {
+			public List<AcopFinding> get() {
+				auditLock.lock();
+				try {
+					int from = runAcopChecks(pool);
+					synchronized (acopFindings) {
+						return Collections.unmodifiableList(
+								new ArrayList<AcopFinding>(acopFindings.subList(from, acopFindings.size())));
+					}
+				} finally {
+					auditLock.unlock();
+				}
+			}
+		}, pool);
+	}
+
+	/**
+	 * @param executor
+	 *            runs the audits of runAcopChecksAsync() and the page source rules of
+	 *            every audit; null (default) runs runAcopChecks() on the calling thread
+	 *            only and runAcopChecksAsync() on a shared executor
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Audits the page, the caller holds auditLock
+	 * 
+	 * @return index of the first finding of this audit in acopFindings
+	 */
+	private int runAcopChecks(Executor sourceExecutor) {
+		runExecutor = sourceExecutor;
+		if (auditBudgetMillis > 0) {
+			auditBudget = new TimeBudget(auditBudgetMillis);
+			auditBudget.start();
+		}
+		FindingListener listener = findingListener;
+		String url = null;
+		if (listener != null) {
+			url = driver.getCurrentUrl();
+			listener.auditStarted(url);
+			runListener = listener;
+			runUrl = url;
+		}
+		try {
+			List<AcopRule> rules = ruleRegistry.getEnabledRules();
+			if (frameAuditing)
+				driver.switchTo().defaultContent();
+			if (incrementalAudit != null) {
+				List<AcopFinding> findings = incrementalAudit.audit(rules);
+				if (findings != null) {
+					synchronized (acopFindings) {
+						acopFindings.clear();
+						acopFindings.addAll(findings);
+					}
+					// findings of the rechecked elements are merged with the kept ones, the merge is published
+					if (listener != null) {
+						for (AcopFinding finding : findings)
+							listener.findingRaised(url, finding);
+					}
+					auditFrames(rules);
+					return 0;
+				}
+				acopFindings.clear();
+			} else if (!keepFindings) {
+				acopFindings.clear();
+			}
+			int from = acopFindings.size();
+			auditDocument(rules, acopFindings, null);
+			auditFrames(rules);
+			return from;
+		} finally {
+			auditBudget = null;
+			runExecutor = null;
+			runListener = null;
+			runUrl = null;
+			if (listener != null)
+				listener.auditFinished(url);
+		}
+	}
+
+	/**
+	 * Hands a finding that was added to the findings of the audit in progress without
+	 * an AuditContext to its finding listener
+	 */
+	void raised(AcopFinding finding) {
+		FindingListener listener = runListener;
+		if (listener != null)
+			listener.findingRaised(runUrl, finding);
+	}
+
+	/**
+	 * @return true if the audit in progress used up its time budget
+	 */
+	boolean isAuditTimeUp() {
+		TimeBudget budget = auditBudget;
+		return budget != null && budget.isExpired();
+	}
+	
+	/**
+	 * Runs the rules on the document the driver is currently switched to
+	 * 
+	 * @param findings
+	 *            list the findings of the document are added to
+	 * @param framePath
+	 *            path of the frame being audited, part of the cache key; null for the top level document
+	 */
+	void auditDocument(List<AcopRule> rules, List<AcopFinding> findings, String framePath) {
+		MetricsSink sink = metricsSink;
+		long startNanos = System.nanoTime();
+		AuditContext run = new AuditContext(this, findings);
+		run.setAuditBudget(auditBudget);
+		run.setFindingListener(runListener, runUrl, framePath);
+		WebDriverCallCounter counter = null;
+		Map<AcopRule, RuleMeter> meters = null;
+		if (sink != null) {
+			counter = new WebDriverCallCounter();
+			run.setDriver(counter.wrap(driver));
+			meters = new LinkedHashMap<AcopRule, RuleMeter>();
+			for (AcopRule rule : rules)
+				meters.put(rule, new RuleMeter(rule.getId(), counter));
+		}
+		WebDriver runDriver = run.getDriver();
+		AuditResultCache cache = resultCache;
+		String cacheKey = null;
+		if (cache != null) {
+			String source = runDriver.getPageSource();
+			// src and href values in findings are resolved against the page url, so it is part of the key
+			cacheKey = AuditResultCache.key(source, ruleRegistry.getRuleSetVersion() + ";" + runDriver.getCurrentUrl()
+					+ (framePath == null ? "" : ";" + framePath));
+			List<AcopFinding> cached = cache.get(cacheKey);
+			if (cached != null) {
+				if (logger.isInfoEnabled())
+					logger.info(" Page source unchanged, reporting " + cached.size() + " cached findings ");
+				for (AcopFinding finding : cached)
+					run.report(finding);
+				if (sink != null)
+					reportMetrics(sink, framePath, true, startNanos, counter, cached.size(), new ArrayList<RuleMetrics>());
+				return;
+			}
+			run.setSourceScan(BuiltInRules.SOURCE_SCANNER.scan(source));
+		}
+		int before = findings.size();
+		if (snapshotMode) {
+			List<ElementSelector> selectors = new ArrayList<ElementSelector>();
+			for (AcopRule rule : rules)
+				selectors.addAll(rule.getSelectors());
+			if (!selectors.isEmpty() && !isAuditTimeUp())
+				run.setSnapshot(PageSnapshot.capture(runDriver, selectors));
+		}
+		context = run;
+		try {
+			boolean complete = OnePassEvaluator.run(rules, run, meters, ruleBudgetMillis, runExecutor);
+			if (cacheKey != null && complete) {
+				synchronized (findings) {
+					cache.put(cacheKey, findings.subList(before, findings.size()));
+				}
+			}
+		} finally {
+			context = null;
+			releasePageReadiness(runDriver);
+		}
+		if (sink != null) {
+			List<RuleMetrics> ruleMetrics = new ArrayList<RuleMetrics>();
+			for (RuleMeter meter : meters.values())
+				ruleMetrics.add(meter.toMetrics());
+			reportMetrics(sink, framePath, false, startNanos, counter, findings.size() - before, ruleMetrics);
+		}
+	}
+
+	private void reportMetrics(MetricsSink sink, String framePath, boolean cached, long startNanos,
+			WebDriverCallCounter counter, int findings, List<RuleMetrics> ruleMetrics) {
+		long wallNanos = System.nanoTime() - startNanos;
+		long driverCalls = counter.getCount();
+		try {
+			sink.auditCompleted(new AuditMetrics(driver.getCurrentUrl(), framePath, cached, wallNanos, driverCalls,
+					findings, ruleMetrics));
+		} catch (RuntimeException ex) {
+			logger.error("Audit metrics could not be reported Error is " + ex);
+		}
+	}
+
+	/**
+	 * Runs the rules in every frame and iframe document if frame auditing is on
+	 */
+	private void auditFrames(List<AcopRule> rules) {
+		if (frameAuditing)
+			new FrameTraversal(this, frameTimeoutMillis, maxFrameDepth).audit(rules, acopFindings);
+	}
+	
+	/**
+	 * Runs a single rule of the registry, as part of the current run if one is in progress
+	 */
+	private void runRule(String id) {
+		AcopRule rule = ruleRegistry.getRule(id);
+		if (rule == null) {
+			logger.info(" Accessbility Rule " + id + " is not registered ");
+			return;
+		}
+		AuditContext run = context;
+		if (run != null) {
+			rule.check(run);
+			return;
+		}
+		try {
+			rule.check(new AuditContext(this, acopFindings));
+		} finally {
+			releasePageReadiness(driver);
+		}
+	}
+	
+	/**
+	 * @return structured findings of this instance, in the same order as acopErrorList
+	 */
+	public List<AcopFinding> getFindings() {
+		return acopFindings;
 	}
 	
 	/** 1
@@ -138,23 +645,7 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkAltTextImageType(){
-		logger.info(" Accessbility Rule 1 - ALT TEXT for Images "); 
-		if(isElementPresentWithXPath(driver, imageXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(imageXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String altAttributeText = subNavLink.getAttribute(altAttribute);
-				String srcAttributeText = subNavLink.getAttribute(srcAttribute);
-				logger.info(" IMAGE Source - " +srcAttributeText  + "  Alternate Text - " + altAttributeText);
-				if(altAttributeText.isEmpty()){
-					acopErrorList.add("FAILURE Accessbility Rule 1 - Alternate Text Missing " +
-							"for Image - " + srcAttributeText);
-					logger.info(" FAILURE Accessbility Rule 1 - Alternate Text Missing " +
-							"for Image - " + srcAttributeText);
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 1 - ALT TEXT for Images - does not apply to this webpage "); 
-		}
+		runRule(BuiltInRules.ALT_TEXT_IMAGE);
 	}
 	
 	
@@ -165,23 +656,7 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkAltTextInputType(){
-		logger.info(" Accessbility Rule 2 - ALT TEXT for Input Images "); 
-		if(isElementPresentWithXPath(driver, inputXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(inputXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String altAttributeText = subNavLink.getAttribute(altAttribute);
-				String srcAttributeText = subNavLink.getAttribute(srcAttribute);
-				logger.info(" IMAGE Source - " +srcAttributeText  + "  Alternate Text - " + altAttributeText);
-				if(altAttributeText.isEmpty()){
-					acopErrorList.add(" FAILURE Accessbility Rule 2 - Alternate Text Missing " +
-						"for Image - " + srcAttributeText);
-					logger.info(" FAILURE Accessbility Rule 2 - Alternate Text Missing " +
-							"for Image - " + srcAttributeText);
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 2 - ALT TEXT for Input Images - does not apply to this webpage "); 
-		}
+		runRule(BuiltInRules.ALT_TEXT_INPUT);
 	}
 
 	
@@ -201,24 +676,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkAreaAltText(){
-		logger.info(" Accessbility Rule 4 - ALT TEXT for Area tags "); 
-		if(isElementPresentWithXPath(driver, areaXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(areaXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String altAttributeText = subNavLink.getAttribute(altAttribute);
-				String hrefAttributeText = subNavLink.getAttribute(hrefAttribute);
-				logger.info("  IMAGE Source - " +hrefAttributeText  + "  Alternate Text - " + altAttributeText);
-				if(altAttributeText.isEmpty()){
-					acopErrorList.add(" FAILURE Accessbility Rule 4 - Alternate Text Missing " +
-						"for Image - " + hrefAttributeText);
-					logger.info(" FAILURE Accessbility Rule 4 - Alternate Text Missing " +
-							"for Image - " + hrefAttributeText);
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 4 - ALT TEXT for Area tags - does not apply to this webpage "); 
-		}
-	}	
+		runRule(BuiltInRules.ALT_TEXT_AREA);
+	}
 
 	
 	/** 5
@@ -227,23 +686,8 @@ public class ACopChecksV1  {
 	 * 	- There should not be more than one page title
 	 */
 	public void checkTitleText(){
-		logger.info(" Accessbility Rule 5 - Page Title Should not be empty "); 
-		if(isElementPresentWithXPath(driver, titleXpath)){
-			int count = getCountOfElementsWithSameXpath(driver, titleXpath);
-			if(count > 1){
-				acopErrorList.add(" FAILURE Accessbility Rule 5 - More than one Page Title found - ");
-				logger.info(" FAILURE Accessbility Rule 5 - More than one Page Title found - ");
-			}
-			String titleText =  driver.getTitle();
-			logger.info(" Page Title Text - " + titleText);
-			if(titleText.isEmpty()){
-				acopErrorList.add(" FAILURE Accessbility Rule 5 - Page Title is Missing for Webpage - ");
-				logger.info(" FAILURE Accessbility Rule 5 - Page Title is Missing for Webpage - ");
-			}
-		}else {
-			logger.info(" Accessbility Rule 5 - Page Title Should not be empty - does not apply to this webpage "); 
-		}
-	}	
+		runRule(BuiltInRules.TITLE);
+	}
 	
 
 	
@@ -253,24 +697,8 @@ public class ACopChecksV1  {
 	 * 	- Frame elements should not have title attributes empty
 	 */
 	public void checkFrameSetText(){
-		logger.info(" Accessbility Rule 6 - Frame elements should have title attributes "); 
-		if(isElementPresentWithXPath(driver, frameSetXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(frameSetXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String altAttributeText = subNavLink.getAttribute(titleAttribute);
-				String hrefAttributeText = subNavLink.getAttribute(hrefAttribute);
-				logger.info(" FrameSet Source - " +hrefAttributeText  + "  Title Text - " + altAttributeText);
-				if(altAttributeText.isEmpty()){
-					acopErrorList.add(" FAILURE Accessbility Rule 6 - Frame element Title " +
-						"text is missing - " + hrefAttributeText);
-					logger.info(" FAILURE Accessbility Rule 6 - Frame element Title " +
-							"text is missing - " + hrefAttributeText);
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 6 - Frame elements should have title attributes - does not apply to this webpage "); 
-		}
-	}	
+		runRule(BuiltInRules.FRAMES);
+	}
 
 	
 	
@@ -281,24 +709,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkiFrameTitleText(){
-		logger.info(" Accessbility Rule 7 - iFrame elements should have title attributes "); 
-		if(isElementPresentWithXPath(driver, iframeXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(iframeXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String altAttributeText = subNavLink.getAttribute(titleAttribute);
-				String srcAttributeText = subNavLink.getAttribute(srcAttribute);
-				logger.info("  iFrame Source - " +srcAttributeText  + "  Title Text - " + altAttributeText);
-				if(altAttributeText.isEmpty()){
-					acopErrorList.add(" FAILURE Accessbility Rule 7 - iFrame element Title " +
-						"text is missing - " + srcAttributeText);
-					logger.info(" FAILURE Accessbility Rule 7 - iFrame element Title " +
-							"text is missing - " + srcAttributeText);
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 7 - iFrame elements should have title attributes - does not apply to this webpage ");  
-		}
-	}	
+		runRule(BuiltInRules.IFRAMES);
+	}
 	
 
 	
@@ -308,19 +720,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkDocType(){
-		logger.info(" Accessbility Rule 8 -  DOCTYPE should be specified if frames exist on page "); 
-		if(driver.getPageSource().contains("iframe") || driver.getPageSource().contains("frame")){
-			if(! (driver.getPageSource().contains("DOCTYPE"))){
-				acopErrorList.add(" FAILURE Accessbility Rule 8 - " +
-						"DOCTYPE is missing for this webpage");
-				logger.info(" FAILURE Accessbility Rule 8 - " +
-						"DOCTYPE is missing for this webpage");
-				}
-		}else {
-			logger.info(" Accessbility Rule 8 -  DOCTYPE should be specified if frames exist on page - does not apply to " +
-					"this webpage ");  
-		}
-	}	
+		runRule(BuiltInRules.DOCTYPE);
+	}
 	
 	
 	
@@ -331,20 +732,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkVisualFormatting(){
-		logger.info(" Accessbility Rule 9 -  HTML visual formatting elements should be avoided on page, use CSS instead "); 
-		if (driver.getPageSource().contains("<b>") || 
-				driver.getPageSource().contains("<center>")	|| 
-					driver.getPageSource().contains("<font>") || 
-						driver.getPageSource().contains("<u>")){
-			acopErrorList.add(" FAILURE Accessbility Rule 9 -  HTML visual formatting elements <b></b>, <i></i>, <center></center>, " +
-					"<font></font>, <u></u> should be avoided on page - Use CSS instead");
-			logger.info(" FAILURE Accessbility Rule 9 -  HTML visual formatting elements <b></b>, <i></i>, <center></center>, " +
-					"<font></font>, <u></u> should be avoided on page - Use CSS instead");
-		}else {
-			logger.info(" Accessbility Rule 9 -  HTML visual formatting elements should be avoided on page, use CSS instead - " +
-					"does not apply to this webpage ");  
-		}
-	}	
+		runRule(BuiltInRules.VISUAL_FORMATTING);
+	}
 	
 	
 	
@@ -354,22 +743,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkLanguageAttribute(){
-		logger.info(" Accessbility Rule 10 - Primary language of a page should be declared within html lang attribute "); 
-		if(isElementPresentWithXPath(driver, htmlXpath)){
-			WebElement element = driver.findElement(By.xpath(htmlXpath));
-			String titleText =  element.getAttribute(langAttribute);
-			logger.info(" Language Attribute for the Webpage - " + titleText);
-			if(titleText.isEmpty()){
-				acopErrorList.add(" FAILURE Accessbility Rule 10 - Primary language of a page " +
-					"should be declared within html lang attribute ");
-				logger.info(" FAILURE Accessbility Rule 10 - Primary language of a page " +
-						"should be declared within html lang attribute ");
-			}
-		}else {
-			logger.info(" Accessbility Rule 10 - Primary language of a page should be declared within html lang attribute" +
-					" - does not apply to this webpage "); 
-		}
-	}	
+		runRule(BuiltInRules.HTML_LANG);
+	}
 		
 	
 	/** 11
@@ -379,27 +754,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkHyperLinksText(){
-		logger.info(" Accessbility Rule 11 - Hyperlinks should always have text associated with them "); 
-		if(isElementPresentWithXPath(driver, hyperLinkXpath)){
-			int count = getCountOfElementsWithSameXpath(driver, hyperLinkXpath);
-			logger.info(" Total number of HyperLinks on this webpage " +count);
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(hyperLinkXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String altAttributeText = subNavLink.getText();
-				String hrefAttributeText = subNavLink.getAttribute(hrefAttribute);
-				logger.info(" HyperLink Source - " +hrefAttributeText  + " HyperLink Text - " + altAttributeText);
-				if(altAttributeText.isEmpty()){
-					acopErrorList.add("FAILURE Accessbility Rule 11 - Hyperlinks should always have text associated " +
-							"with them for - " + hrefAttributeText);
-					logger.info("FAILURE Accessbility Rule 11 - Hyperlinks should always have text associated " +
-							"with them for - " + hrefAttributeText);
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 11 - Hyperlinks should always have text associated with them - " +
-					"does not apply to this webpage "); 
-		}
-	}	
+		runRule(BuiltInRules.HYPERLINKS);
+	}
 	
 	
 	/** 12
@@ -409,16 +765,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkFlashingContent(){
-		logger.info(" Accessbility Rule 12 - FLASHING CONTENT blink and marquee elements must not be used "); 
-		if(driver.getPageSource().contains("<blink>") || 
-				driver.getPageSource().contains("<marquee>")){
-			acopErrorList.add(" FAILURE Accessbility Rule 12 -  FLASHING CONTENT blink and marquee elements must not be used ");
-			logger.info(" FAILURE Accessbility Rule 12 -  FLASHING CONTENT blink and marquee elements must not be used ");
-		}else {
-		logger.info(" Accessbility Rule 12 -  FLASHING CONTENT blink and marquee elements must not be used  - " +
-				"does not apply to this webpage ");
-		}
-	}	
+		runRule(BuiltInRules.FLASHING_CONTENT);
+	}
 	
 	
 	/** 13
@@ -428,24 +776,8 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkTableAccessibility(){
-		logger.info(" Accessbility Rule 13 - Table should have a non empty summary attribute "); 
-		if(isElementPresentWithXPath(driver, tableXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(tableXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String summaryAttributeText = subNavLink.getAttribute(summaryAttribute);
-				logger.info(" Table Summary Text - " + summaryAttributeText);
-				if(summaryAttributeText.isEmpty()){
-					acopErrorList.add(" FAILURE Accessbility Rule 13 - " +
-						"Table should have a non empty summary attribute  ");
-					logger.info(" FAILURE Accessbility Rule 13 - " +
-							"Table should have a non empty summary attribute  ");
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 13 - Table should have a non empty summary attribute - " +
-					"does not apply to this webpage ");  
-		}
-	}	
+		runRule(BuiltInRules.TABLE_SUMMARY);
+	}
 	
 	
 	/** 14
@@ -455,26 +787,32 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	public void checkTableHeaders(){
-		logger.info(" Accessbility Rule 14 - Table Headers should have attributes to specify row and column headers "); 
-		if(isElementPresentWithXPath(driver, tableHeaderXpath)){
-			List<WebElement> subNavLinks = driver.findElements(By.xpath(tableHeaderXpath));
-			for (WebElement subNavLink : subNavLinks) {
-				String headerAttributeText = subNavLink.getAttribute(headerAttribute);
-				String roleAttributeText = subNavLink.getAttribute(roleAttribute);
-				String scopeAttributeText = subNavLink.getAttribute(scopeAttribute);
-				logger.info(" >>Header - " +headerAttributeText +" >> Role - " +roleAttributeText +" >>Scope - " +scopeAttributeText);
-				if( (headerAttributeText == null) && (roleAttributeText == null) && (scopeAttributeText == null)) {
-					acopErrorList.add("FAILURE Accessbility Rule 14 - Table Headers should have attributes to specify row and " +
-							"column headers ");
-					logger.info("FAILURE Accessbility Rule 14 - Table Headers should have attributes to specify row and " +
-							"column headers ");
-				}
-			}
-		}else {
-			logger.info(" Accessbility Rule 14 - Table Headers should have attributes to specify row and column headers - " +
-					"does not apply to this webpage ");  
-		}
-	}	
+		runRule(BuiltInRules.TABLE_HEADERS);
+	}
+	
+	
+	/** 15
+	 * HEADINGS <h1>Heading 1</h1><h2>Heading 2</h2>
+	 * 	- Page must contain atleast one h1 element
+	 * 	- Headings (h1..h6) should have non empty text
+	 * 	- Heading elements that follow the h1 element should be properly nested
+	 * 
+	 */
+	public void checkHeadings(){
+		runRule(BuiltInRules.HEADINGS);
+	}
+	
+	
+	/** 16
+	 * FORMS <input id='name' type='text'><label for='name'>Name</label>
+	 * 	- Every form element should have a corresponding label (the label 'for' attribute should match the form field 'id' attribute)
+	 * 	- Form input elements of type submit|reset|button should have a non empty value attribute instead of a label
+	 * 	- Labels, legends and buttons should have non empty text
+	 * 
+	 */
+	public void checkFormLabels(){
+		runRule(BuiltInRules.FORMS);
+	}
 		
 
 	/**
@@ -482,6 +820,33 @@ public class ACopChecksV1  {
 	 * 
 	 */
 	
+	/**
+	 * Finds the elements a check looks at by querying webdriver with the selector xpath,
+	 * with batched queries the declared attributes and text are read in the same call
+	 * 
+	 * @param context
+	 *            run the elements are looked up for, its driver is used
+	 * @param selector
+	 *            elements needed by the check
+	 * @return matching elements in document order, empty list if none are present
+	 */
+	protected List<PageElement> findPageElements(AuditContext context, final ElementSelector selector) {
+		final WebDriver runDriver = context.getDriver();
+		if (batchedQueries && runDriver instanceof JavascriptExecutor) {
+			List<PageElement> found = withPresenceRetries(new Lookup<PageElement>() {
+				public List<PageElement> find() {
+					return ElementQuery.query(runDriver, selector);
+				}
+			}, selector.getXpath(), context);
+			if (found != null)
+				return found;
+		}
+		List<PageElement> found = new ArrayList<PageElement>();
+		for (WebElement element : findElementsWithXPath(runDriver, selector.getXpath(), context))
+			found.add(new WebPageElement(element));
+		return found;
+	}
+	
 	/**
 	 * Checks whether an element is present on the page. It uses an elements
 	 * xpath expression to find it on the page
@@ -493,46 +858,123 @@ public class ACopChecksV1  {
 	 * @return true, if element is present; false if not found
 	 */
 	public boolean isElementPresentWithXPath(WebDriver driver, String xPathExpression) {
-		boolean isElementPresent = false;
-		WebElement targetElement = null;
+		return !findElementsWithXPath(driver, xPathExpression).isEmpty();
+	}
+	
+	/**
+	 * Finds all elements matching an xpath expression. An empty findElements result
+	 * means the element is absent, so a clean page costs one call per expression.
+	 * Retries only happen when configured with setPresenceRetries and never run past
+	 * the presence timeout.
+	 * 
+	 * @param driver
+	 *            webdriver instance used in the test
+	 * @param xPathExpression
+	 *            Xpath expression for a given element on the page
+	 * @return matching elements, empty list if none were found before the deadline
+	 */
+	public List<WebElement> findElementsWithXPath(WebDriver driver, String xPathExpression) {
+		return findElementsWithXPath(driver, xPathExpression, null);
+	}
 
-		try {
-			targetElement = waitOnXPath(xPathExpression);
-			if (targetElement != null)
-				isElementPresent = true;
-			else
-				isElementPresent = false;
-		} catch (org.openqa.selenium.ElementNotVisibleException ex) {
-			isElementPresent = false;
-			logger.error("ElementNotVisibleException  for element with xpath "
-					+ xPathExpression + " Error is " + ex.getMessage());
-		} catch (org.openqa.selenium.NoSuchElementException ex) {
-			logger.error("NoSuchElementException  for element with xpath "
-					+ xPathExpression + " Error is " + ex.getMessage());
-			isElementPresent = false;
-		} catch (org.openqa.selenium.StaleElementReferenceException ex) {
-			logger.error("Stale Element Reference for element with xpath "
-					+ xPathExpression + " Error is " + ex.getMessage());
-			isElementPresent = false;
+	/**
+	 * @param context
+	 *            run that is told when the presence timeout cut the retries short, may be null
+	 */
+	private List<WebElement> findElementsWithXPath(final WebDriver driver, final String xPathExpression,
+			AuditContext context) {
+		return withPresenceRetries(new Lookup<WebElement>() {
+			public List<WebElement> find() {
+				return driver.findElements(By.xpath(xPathExpression));
+			}
+		}, xPathExpression, context);
+	}
+
+	/**
+	 * Runs a lookup until it finds something, as often as the presence retries allow
+	 * 
+	 * @return found elements, empty list if none were found before the deadline, null if the lookup cannot be done
+	 */
+	private <T> List<T> withPresenceRetries(Lookup<T> lookup, String xPathExpression, AuditContext context) {
+		return withPresenceRetries(lookup, xPathExpression, context, presenceRetries, presenceTimeoutMillis);
+	}
+
+	/**
+	 * @param retries
+	 *            additional attempts after the first one found nothing
+	 * @param timeoutMillis
+	 *            time after which no further attempt is made
+	 */
+	private <T> List<T> withPresenceRetries(Lookup<T> lookup, String xPathExpression, AuditContext context,
+			int retries, long timeoutMillis) {
+		long deadline = System.currentTimeMillis()
+				+ (context == null ? timeoutMillis : context.boundWait(timeoutMillis));
+		long backoff = presenceBackoffMillis;
+		for (int attempt = 0; ; attempt++) {
+			try {
+				List<T> elements = lookup.find();
+				if (elements == null || !elements.isEmpty())
+					return elements;
+			} catch (org.openqa.selenium.StaleElementReferenceException ex) {
+				logger.error("Stale Element Reference for element with xpath "
+						+ xPathExpression + " Error is " + ex.getMessage());
+			}
+			long remaining = deadline - System.currentTimeMillis();
+			if (attempt < retries && remaining <= 0 && context != null)
+				context.timedOut();
+			if (attempt >= retries || remaining <= 0)
+				return new ArrayList<T>();
+			try {
+				Thread.sleep(Math.min(backoff, remaining));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return new ArrayList<T>();
+			}
+			backoff *= 2;
 		}
+	}
+
+	/**
+	 * A single element lookup that the presence retries repeat
+	 */
+	private interface Lookup<T> {
 
-		return isElementPresent;
+		/**
+		 * @return found elements, null if the lookup cannot be done with this driver
+		 */
+		List<T> find();
 	}
 	
 	/**
-	 * Gets the count of elements having same xpath
+	 * Gets the count of elements having same xpath, once the page is ready
+	 * (see setPageReadyWait)
 	 * 
 	 * @param driver
 	 * @param subNavLinkXPath
 	 * @return
 	 */
 	public int getCountOfElementsWithSameXpath(WebDriver driver, String xpath) {
-		int count = 0;
 		try {
-			Thread.sleep(1000);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+			return countElements(driver, xpath, null);
+		} finally {
+			releasePageReadiness(driver);
 		}
+	}
+
+	/**
+	 * Element count for a rule of the given run, a page ready wait that runs into its
+	 * limit is recorded as a timeout of the run
+	 */
+	int countElements(AuditContext context, String xpath) {
+		return countElements(context.getDriver(), xpath, context);
+	}
+
+	private int countElements(WebDriver driver, String xpath, AuditContext context) {
+		int count = 0;
+		long maxWaitMillis = context == null ? pageReadyMaxWaitMillis : context.boundWait(pageReadyMaxWaitMillis);
+		readinessObserved = true;
+		if (!PageReadiness.waitForPageReady(driver, pageQuietMillis, maxWaitMillis) && context != null)
+			context.timedOut();
 		List<WebElement> elements = driver.findElements(By.xpath(xpath));
 		if (elements != null & !elements.isEmpty())
 			count = elements.size();
@@ -540,45 +982,61 @@ public class ACopChecksV1  {
 	}
 	
 	/**
-	 * Waits until webdriver can find the element specified by xpath.
+	 * Removes the page readiness observer once the document it watches is audited,
+	 * so the page under test is left as it was
+	 */
+	private void releasePageReadiness(WebDriver driver) {
+		if (!readinessObserved)
+			return;
+		readinessObserved = false;
+		PageReadiness.release(driver);
+	}
+
+	/**
+	 * Waits until webdriver can find the element specified by xpath, at most for the
+	 * presence timeout (see waitOnElement)
 	 *
 	 * @param path
-	 * @param maxMilliseconds
-	 * @param frame
-	 * @return true if WebDriver is able to find an element with the given id
+	 * @return first matching element, null if none was found before the deadline
+	 * @deprecated use findElementsWithXPath or isElementPresentWithXPath, which wait
+	 *             as configured by setPresenceRetries and setPresenceTimeout
 	 */
+	@Deprecated
 	public WebElement waitOnXPath(String path) {
 		return waitOnElement(By.xpath(path), MaxWaitSeconds, null);
 	}
 
-	
 	/**
-	 * Waits until webdriver can find the element specified by xpath.
-	 * @param path
-	 * @param maxMilliseconds
-	 * @param frame
+	 * Waits until webdriver can find the element. The lookup is repeated with the
+	 * presence backoff (see setPresenceRetries) until maxSeconds or the presence
+	 * timeout, whichever is shorter, are up. An element or frame that is not there
+	 * yet is looked up again, any other webdriver error is thrown.
 	 * 
+	 * @param element
+	 * @param maxSeconds
+	 *            longest wait in seconds, the presence timeout bounds it too
+	 * @param frame
+	 *            name or id of the frame to look in, null for the top level document
+	 * @return first matching element, null if none was found before the deadline
+	 * @deprecated use findElementsWithXPath or isElementPresentWithXPath, which wait
+	 *             as configured by setPresenceRetries and setPresenceTimeout
 	 */
-	public WebElement waitOnElement(By element, int maxSeconds, String frame) {
-		WebElement identifier = null;
-
-		for (int i = 0; i < maxSeconds; i++) {
-			try {
-				if (frame == null)
-					identifier = driver.findElement(element);
-				else {
+	@Deprecated
+	public WebElement waitOnElement(final By element, int maxSeconds, final String frame) {
+		List<WebElement> found = withPresenceRetries(new Lookup<WebElement>() {
+			public List<WebElement> find() {
+				if (frame != null) {
 					driver.switchTo().defaultContent();
-					identifier = driver.switchTo().frame(frame).findElement(element);
+					try {
+						driver.switchTo().frame(frame);
+					} catch (NoSuchFrameException ex) {
+						return new ArrayList<WebElement>();
+					}
 				}
-				//if element is found return
-				if (identifier != null) 
-					break;
-				Thread.sleep(WAIT_TO_CHECK);
-			} catch (Exception e) {			
-				identifier = null;
-			}		
-		}
-		return identifier;
+				return driver.findElements(element);
+			}
+		}, element.toString(), null, Integer.MAX_VALUE, Math.min(maxSeconds * 1000L, presenceTimeoutMillis));
+		return found.isEmpty() ? null : found.get(0);
 	}
 		
 	
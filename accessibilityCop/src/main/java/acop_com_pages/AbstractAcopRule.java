@@ -0,0 +1,59 @@
+package acop_com_pages;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base class for rules with a fixed id, description, cost and set of selectors
+ *
+ */
+public abstract class AbstractAcopRule implements AcopRule {
+
+	private final String id;
+	private final String description;
+	private final int cost;
+	private final List<ElementSelector> selectors;
+
+	protected AbstractAcopRule(String id, String description, int cost, ElementSelector... selectors) {
+		this.id = id;
+		this.description = description;
+		this.cost = cost;
+		this.selectors = Collections.unmodifiableList(Arrays.asList(selectors));
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public int getCost() {
+		return cost;
+	}
+
+	public List<ElementSelector> getSelectors() {
+		return selectors;
+	}
+
+	/**
+	 * @return the first selector, for rules that read a single kind of element
+	 */
+	protected ElementSelector getSelector() {
+		return selectors.get(0);
+	}
+
+	/**
+	 * @return true if the attribute or text value is missing or empty
+	 */
+	protected static boolean isEmpty(String value) {
+		return value == null || value.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "Accessbility Rule " + id + " - " + description;
+	}
+}
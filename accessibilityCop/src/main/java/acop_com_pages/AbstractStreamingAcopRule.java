@@ -0,0 +1,30 @@
+package acop_com_pages;
+
+import java.util.List;
+
+/**
+ * Base class for streaming rules. check() feeds the visitor from
+ * AuditContext.findElements, one selector after the other, so the same visitor
+ * runs in live mode and in the single pass over a snapshot. A rule that runs out
+ * of time is stopped before its next element.
+ *
+ */
+public abstract class AbstractStreamingAcopRule extends AbstractAcopRule implements StreamingAcopRule {
+
+	protected AbstractStreamingAcopRule(String id, String description, int cost, ElementSelector... selectors) {
+		super(id, description, cost, selectors);
+	}
+
+	public void check(AuditContext context) {
+		ElementVisitor visitor = createVisitor(context);
+		for (ElementSelector selector : getSelectors()) {
+			List<PageElement> elements = context.findElements(selector);
+			for (int i = 0; i < elements.size(); i++) {
+				// in live mode every element read is a round trip, so the budget is checked per element
+				context.checkDeadline();
+				visitor.visit(elements.get(i), selector, i);
+			}
+		}
+		visitor.end();
+	}
+}
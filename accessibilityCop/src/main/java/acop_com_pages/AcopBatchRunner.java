@@ -0,0 +1,325 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Audits many urls in parallel on a bounded pool of webdriver sessions.
+ * 	- one worker per session; a session is reused for every url its worker audits
+ * 	- urls are pulled from the iterator only when a session is free, so a large
+ * 	  or endless url stream is never buffered in memory
+ * 	- each url gets a timeout; a session that times out or fails is quit and
+ * 	  replaced by a fresh one from the factory. A timed out session is quit by
+ * 	  the audit thread once it returns, never while the audit still uses it
+ * 	- results are handed to the AuditListener as soon as each page is finished;
+ * 	  every url taken from the iterator gets a result, a url whose session could
+ * 	  not be created is reported as FAILED and a failing listener is logged, so
+ * 	  neither ends the worker
+ *
+ * 	AcopBatchRunner runner = new AcopBatchRunner(factory, 4);
+ * 	runner.run(urls, listener);
+ *
+ */
+public class AcopBatchRunner {
+
+	private static Log logger = ACopChecksV1.getLog(AcopBatchRunner.class);
+
+	private final WebDriverFactory driverFactory;
+	private final int poolSize;
+	private long urlTimeoutMillis = 120000;
+	private boolean snapshotMode = false;
+	private AuditResultCache resultCache = null;
+	private boolean frameAuditing = false;
+	private MetricsSink metricsSink = null;
+	private long auditBudgetMillis = 0;
+	private long ruleBudgetMillis = 0;
+
+	/**
+	 * @param driverFactory
+	 *            creates the webdriver sessions
+	 * @param poolSize
+	 *            number of sessions, and so of pages audited at the same time
+	 */
+	public AcopBatchRunner(WebDriverFactory driverFactory, int poolSize) {
+		if (poolSize < 1)
+			throw new IllegalArgumentException("poolSize must be at least 1 - " + poolSize);
+		this.driverFactory = driverFactory;
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * @param timeoutMillis
+	 *            upper bound for loading and auditing a single url
+	 */
+	public void setUrlTimeout(long timeoutMillis) {
+		this.urlTimeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * @see ACopChecksV1#setSnapshotMode(boolean)
+	 */
+	public void setSnapshotMode(boolean snapshotMode) {
+		this.snapshotMode = snapshotMode;
+	}
+
+	/**
+	 * @see ACopChecksV1#setResultCache(AuditResultCache)
+	 */
+	public void setResultCache(AuditResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	/**
+	 * @see ACopChecksV1#setFrameAuditing(boolean)
+	 */
+	public void setFrameAuditing(boolean frameAuditing) {
+		this.frameAuditing = frameAuditing;
+	}
+
+	/**
+	 * Time budgets for the audit of a page, unlike the url timeout they keep the
+	 * session and return the findings collected so far as a PARTIAL result
+	 *
+	 * @see ACopChecksV1#setTimeBudgets(long, long)
+	 */
+	public void setTimeBudgets(long auditMillis, long ruleMillis) {
+		this.auditBudgetMillis = auditMillis;
+		this.ruleBudgetMillis = ruleMillis;
+	}
+
+	/**
+	 * @param metricsSink
+	 *            sink shared by all sessions, so it has to be thread safe
+	 * @see ACopChecksV1#setMetricsSink(MetricsSink)
+	 */
+	public void setMetricsSink(MetricsSink metricsSink) {
+		this.metricsSink = metricsSink;
+	}
+
+	/**
+	 * Audits every url and returns once all of them are done
+	 *
+	 * @param urls
+	 *            pages to audit, read lazily
+	 * @param listener
+	 *            receives one result per url as soon as it is finished
+	 * @return number of urls audited
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting for the workers
+	 */
+	public int run(Iterable<String> urls, AuditListener listener) throws InterruptedException {
+		return run(urls.iterator(), listener);
+	}
+
+	/**
+	 * @see #run(Iterable, AuditListener)
+	 */
+	public int run(Iterator<String> urls, AuditListener listener) throws InterruptedException {
+		ExecutorService workers = Executors.newFixedThreadPool(poolSize);
+		ExecutorService audits = Executors.newCachedThreadPool();
+		List<Future<Integer>> running = new ArrayList<Future<Integer>>();
+		try {
+			for (int i = 0; i < poolSize; i++)
+				running.add(workers.submit(new Worker(urls, listener, audits)));
+			int audited = 0;
+			for (Future<Integer> worker : running) {
+				try {
+					audited += worker.get();
+				} catch (ExecutionException ex) {
+					logger.error("Audit worker failed Error is " + ex.getCause());
+				}
+			}
+			return audited;
+		} finally {
+			workers.shutdownNow();
+			audits.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates the checks for a single page, override to configure them further
+	 */
+	protected ACopChecksV1 createChecks(WebDriver driver) {
+		ACopChecksV1 checks = new ACopChecksV1(driver);
+		checks.setSnapshotMode(snapshotMode);
+		checks.setResultCache(resultCache);
+		checks.setFrameAuditing(frameAuditing);
+		checks.setMetricsSink(metricsSink);
+		checks.setTimeBudgets(auditBudgetMillis, ruleBudgetMillis);
+		return checks;
+	}
+
+	/**
+	 * Loads the url and runs all checks on it
+	 */
+	protected List<AcopFinding> audit(WebDriver driver, String url) {
+		driver.get(url);
+		ACopChecksV1 checks = createChecks(driver);
+		checks.runAcopChecks();
+		return checks.getFindings();
+	}
+
+	private static void quit(WebDriver driver) {
+		try {
+			driver.quit();
+		} catch (RuntimeException ex) {
+			logger.error("WebDriver session could not be closed Error is " + ex.getMessage());
+		}
+	}
+
+
+	/**
+	 * Owns one webdriver session and audits urls with it until the iterator is exhausted
+	 */
+	private class Worker implements Callable<Integer> {
+
+		private final Iterator<String> urls;
+		private final AuditListener listener;
+		private final ExecutorService audits;
+
+		Worker(Iterator<String> urls, AuditListener listener, ExecutorService audits) {
+			this.urls = urls;
+			this.listener = listener;
+			this.audits = audits;
+		}
+
+		public Integer call() throws InterruptedException {
+			int audited = 0;
+			WebDriver driver = null;
+			try {
+				String url;
+				while ((url = nextUrl()) != null) {
+					long start = System.currentTimeMillis();
+					AuditResult result;
+					try {
+						if (driver == null)
+							driver = driverFactory.createDriver();
+						result = auditWithTimeout(driver, url);
+					} catch (RuntimeException ex) {
+						logger.error("Audit could not be started for " + url + " Error is " + ex);
+						result = new AuditResult(url, AuditResult.Status.FAILED, null, ex,
+								System.currentTimeMillis() - start);
+					}
+					// a PARTIAL audit was stopped by its time budget, the session is still usable;
+					// a TIMED_OUT session was already handed to its audit thread to quit
+					if (result.getStatus() == AuditResult.Status.TIMED_OUT) {
+						driver = null;
+					} else if (result.getStatus() == AuditResult.Status.FAILED && driver != null) {
+						quit(driver);
+						driver = null;
+					}
+					deliver(result);
+					audited++;
+				}
+			} finally {
+				if (driver != null)
+					quit(driver);
+			}
+			return audited;
+		}
+
+		private void deliver(AuditResult result) {
+			try {
+				synchronized (listener) {
+					listener.onResult(result);
+				}
+			} catch (RuntimeException ex) {
+				logger.error("Audit listener failed for " + result.getUrl() + " Error is " + ex);
+			}
+		}
+
+		private String nextUrl() {
+			synchronized (urls) {
+				return urls.hasNext() ? urls.next() : null;
+			}
+		}
+
+		private AuditResult auditWithTimeout(WebDriver driver, String url) throws InterruptedException {
+			long start = System.currentTimeMillis();
+			Audit task = new Audit(driver, url);
+			Future<List<AcopFinding>> audit = audits.submit(task);
+			try {
+				List<AcopFinding> findings = new ArrayList<AcopFinding>(audit.get(urlTimeoutMillis, TimeUnit.MILLISECONDS));
+				AuditResult.Status status = AuditResult.Status.COMPLETED;
+				for (AcopFinding finding : findings) {
+					if (finding.isTimeout())
+						status = AuditResult.Status.PARTIAL;
+				}
+				return new AuditResult(url, status, findings, null, System.currentTimeMillis() - start);
+			} catch (TimeoutException ex) {
+				audit.cancel(true);
+				task.abandon();
+				logger.error("Audit timed out after " + urlTimeoutMillis + " ms for " + url);
+				return new AuditResult(url, AuditResult.Status.TIMED_OUT, null, null,
+						System.currentTimeMillis() - start);
+			} catch (ExecutionException ex) {
+				logger.error("Audit failed for " + url + " Error is " + ex.getCause());
+				return new AuditResult(url, AuditResult.Status.FAILED, null, ex.getCause(),
+						System.currentTimeMillis() - start);
+			}
+		}
+	}
+
+
+	/**
+	 * Audit of one url on the audits pool. A session whose audit timed out is quit
+	 * by whichever side finishes last, so it is never quit while still in use.
+	 */
+	private class Audit implements Callable<List<AcopFinding>> {
+
+		private final WebDriver driver;
+		private final String url;
+		private boolean started = false;
+		private boolean finished = false;
+		private boolean abandoned = false;
+
+		Audit(WebDriver driver, String url) {
+			this.driver = driver;
+			this.url = url;
+		}
+
+		public List<AcopFinding> call() {
+			synchronized (this) {
+				if (abandoned)
+					return null;
+				started = true;
+			}
+			try {
+				return audit(driver, url);
+			} finally {
+				boolean quit;
+				synchronized (this) {
+					finished = true;
+					quit = abandoned;
+				}
+				if (quit)
+					quit(driver);
+			}
+		}
+
+		/**
+		 * Gives up on the audit, the session is quit now if the audit is not running
+		 * and otherwise by the audit thread as soon as it returns
+		 */
+		void abandon() {
+			boolean quitNow;
+			synchronized (this) {
+				abandoned = true;
+				quitNow = !started || finished;
+			}
+			if (quitNow)
+				quit(driver);
+		}
+	}
+}
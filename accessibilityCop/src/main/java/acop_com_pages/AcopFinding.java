@@ -0,0 +1,239 @@
+package acop_com_pages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A single accessibility error or warning raised by a rule. A finding only keeps
+ * references to values the rule already holds (constant message, selector xpath,
+ * attribute value read from the page); the text stored in acopErrorList is built
+ * the first time someone reads it.
+ *
+ */
+public class AcopFinding {
+
+	public enum Severity {
+		ERROR, WARNING
+	}
+
+	private static final String TIMEOUT_PREFIX = " TIMEOUT Accessbility Rule ";
+
+	/** rule id of the messages callers add to acopErrorList themselves */
+	public static final String CUSTOM_RULE_ID = "custom";
+
+	private final String ruleId;
+	private final Severity severity;
+	private final String message;
+	private final String xpath;
+	private final int elementIndex;
+	private final String attribute;
+	private final String detail;
+	private final int sourceOffset;
+	private final String framePath;
+	private volatile String text = null;
+
+	/**
+	 * @param ruleId
+	 *            id of the rule that raised the finding
+	 * @param severity
+	 * @param message
+	 *            fixed message text, usually a constant of the rule
+	 * @param xpath
+	 *            xpath of the selector the element was found with, null for page level findings
+	 * @param elementIndex
+	 *            position of the element among the selector matches, -1 for page level findings
+	 * @param attribute
+	 *            name of the offending attribute, null if the finding is not about an attribute
+	 * @param detail
+	 *            value appended to the message, e.g. the src of an image, may be null
+	 * @param sourceOffset
+	 *            offset of the problem in the page source, -1 if not known
+	 */
+	public AcopFinding(String ruleId, Severity severity, String message, String xpath, int elementIndex,
+			String attribute, String detail, int sourceOffset) {
+		this(ruleId, severity, message, xpath, elementIndex, attribute, detail, sourceOffset, null);
+	}
+
+	private AcopFinding(String ruleId, Severity severity, String message, String xpath, int elementIndex,
+			String attribute, String detail, int sourceOffset, String framePath) {
+		this.ruleId = ruleId;
+		this.severity = severity;
+		this.message = message;
+		this.xpath = xpath;
+		this.elementIndex = elementIndex;
+		this.attribute = attribute;
+		this.detail = detail;
+		this.sourceOffset = sourceOffset;
+		this.framePath = framePath;
+	}
+
+	/**
+	 * Error about the whole page
+	 */
+	public static AcopFinding pageError(String ruleId, String message) {
+		return new AcopFinding(ruleId, Severity.ERROR, message, null, -1, null, null, -1);
+	}
+
+	/**
+	 * Error about the n-th element matched by a selector
+	 */
+	public static AcopFinding elementError(String ruleId, String message, ElementSelector selector, int elementIndex,
+			String attribute, String detail) {
+		return new AcopFinding(ruleId, Severity.ERROR, message, selector.getXpath(), elementIndex, attribute, detail, -1);
+	}
+
+	/**
+	 * Error about a pattern found in the page source
+	 */
+	public static AcopFinding sourceError(String ruleId, String message, String pattern, int sourceOffset) {
+		return new AcopFinding(ruleId, Severity.ERROR, message, null, -1, null, pattern, sourceOffset);
+	}
+
+	/**
+	 * Error text added to acopErrorList by the caller rather than raised by a rule
+	 */
+	public static AcopFinding customError(String message) {
+		return new AcopFinding(CUSTOM_RULE_ID, Severity.ERROR, message, null, -1, null, null, -1);
+	}
+
+	/**
+	 * Warning that a rule was stopped or not run because its time budget or the
+	 * audit time budget was used up, so its findings are incomplete
+	 *
+	 * @param started
+	 *            true if the rule was stopped while running, false if it was not run at all
+	 * @param reason
+	 *            budget that ran out
+	 */
+	public static AcopFinding timeout(String ruleId, boolean started, String reason) {
+		return new AcopFinding(ruleId, Severity.WARNING, TIMEOUT_PREFIX + ruleId
+				+ (started ? " - check stopped, findings of this rule are incomplete - " : " - check not run - "),
+				null, -1, null, reason, -1);
+	}
+
+	/**
+	 * @return the same finding raised inside the frame document at framePath
+	 */
+	AcopFinding inFrame(String framePath) {
+		return new AcopFinding(ruleId, severity, message, xpath, elementIndex, attribute, detail, sourceOffset, framePath);
+	}
+
+	/**
+	 * @return true for the warnings added when a rule ran out of time, see timeout()
+	 */
+	public boolean isTimeout() {
+		return severity == Severity.WARNING && message.startsWith(TIMEOUT_PREFIX);
+	}
+
+	public String getRuleId() {
+		return ruleId;
+	}
+
+	public Severity getSeverity() {
+		return severity;
+	}
+
+	/**
+	 * @return xpath locating the element, e.g. (//img)[3], null for page level findings
+	 */
+	public String getLocator() {
+		if (xpath == null)
+			return null;
+		return elementIndex < 0 ? xpath : "(" + xpath + ")[" + (elementIndex + 1) + "]";
+	}
+
+	public String getAttribute() {
+		return attribute;
+	}
+
+	public String getDetail() {
+		return detail;
+	}
+
+	public int getSourceOffset() {
+		return sourceOffset;
+	}
+
+	/**
+	 * @return locators of the frame or iframe elements leading to the document the
+	 *         finding was raised in, separated by " / ", null for the top level document
+	 */
+	public String getFramePath() {
+		return framePath;
+	}
+
+	/**
+	 * @return the error text as reported in acopErrorList
+	 */
+	public String getMessage() {
+		String rendered = text;
+		if (rendered == null) {
+			StringBuilder builder = new StringBuilder().append(message);
+			if (detail != null)
+				builder.append(detail);
+			if (sourceOffset >= 0)
+				builder.append(" at offset ").append(sourceOffset);
+			if (framePath != null)
+				builder.append(" in frame ").append(framePath);
+			rendered = builder.toString();
+			text = rendered;
+		}
+		return rendered;
+	}
+
+	/**
+	 * Writes the fields of the finding, the format read by read(DataInput)
+	 */
+	void write(DataOutput out) throws IOException {
+		writeString(out, ruleId);
+		writeString(out, severity.name());
+		writeString(out, message);
+		writeString(out, xpath);
+		out.writeInt(elementIndex);
+		writeString(out, attribute);
+		writeString(out, detail);
+		out.writeInt(sourceOffset);
+		writeString(out, framePath);
+	}
+
+	static AcopFinding read(DataInput in) throws IOException {
+		String ruleId = readString(in);
+		Severity severity = Severity.valueOf(readString(in));
+		String message = readString(in);
+		String xpath = readString(in);
+		int elementIndex = in.readInt();
+		String attribute = readString(in);
+		String detail = readString(in);
+		int sourceOffset = in.readInt();
+		return new AcopFinding(ruleId, severity, message, xpath, elementIndex, attribute, detail, sourceOffset,
+				readString(in));
+	}
+
+	/**
+	 * Length prefixed UTF-8, -1 for null; writeUTF is limited to 64k
+	 */
+	static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	@Override
+	public String toString() {
+		return getMessage();
+	}
+}
@@ -0,0 +1,42 @@
+package acop_com_pages;
+
+import java.util.List;
+
+/**
+ * A single accessibility checkpoint. Rules are collected in an AcopRuleRegistry and
+ * run by ACopChecksV1.runAcopChecks() in order of their cost.
+ *
+ * Additional rules can be registered explicitly or shipped in a jar that lists the
+ * implementation class in META-INF/services/acop_com_pages.AcopRule.
+ *
+ */
+public interface AcopRule {
+
+	/**
+	 * @return unique rule id, built in rules use their checkpoint number
+	 */
+	String getId();
+
+	/**
+	 * @return short description used in log output
+	 */
+	String getDescription();
+
+	/**
+	 * @return relative cost of the rule, cheaper rules run first
+	 */
+	int getCost();
+
+	/**
+	 * Elements the rule reads. In snapshot mode the selectors of all enabled rules
+	 * are merged into one shared fetch.
+	 *
+	 * @return selectors used with AuditContext.findElements, empty if the rule does not read elements
+	 */
+	List<ElementSelector> getSelectors();
+
+	/**
+	 * Evaluates the rule and reports every error to the context
+	 */
+	void check(AuditContext context);
+}
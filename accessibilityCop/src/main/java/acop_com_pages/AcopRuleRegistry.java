@@ -0,0 +1,126 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * The rules run by ACopChecksV1. Rules can be added, replaced (same id) and
+ * disabled without touching runAcopChecks(). A registry can be copied to keep
+ * separate rule sets per page type.
+ *
+ * 	AcopRuleRegistry registry = AcopRuleRegistry.createDefault();
+ * 	registry.disable(BuiltInRules.HYPERLINKS);
+ * 	checks.setRuleRegistry(registry);
+ *
+ */
+public class AcopRuleRegistry {
+
+	private static Log logger = ACopChecksV1.getLog(AcopRuleRegistry.class);
+
+	private final Map<String, AcopRule> rules = new LinkedHashMap<String, AcopRule>();
+	private final Set<String> disabled = new HashSet<String>();
+
+	public AcopRuleRegistry() {
+	}
+
+	/**
+	 * Copies the rules and enabled state of another registry
+	 */
+	public AcopRuleRegistry(AcopRuleRegistry other) {
+		synchronized (other) {
+			rules.putAll(other.rules);
+			disabled.addAll(other.disabled);
+		}
+	}
+
+	/**
+	 * @return registry with all built in rules plus every rule found through ServiceLoader
+	 */
+	public static AcopRuleRegistry createDefault() {
+		AcopRuleRegistry registry = new AcopRuleRegistry();
+		for (AcopRule rule : BuiltInRules.all())
+			registry.register(rule);
+		for (AcopRule rule : ServiceLoader.load(AcopRule.class)) {
+			logger.info(" Registering accessibility rule " + rule.getId() + " - " + rule.getDescription());
+			registry.register(rule);
+		}
+		return registry;
+	}
+
+	/**
+	 * Adds a rule, replacing any rule registered with the same id
+	 */
+	public synchronized AcopRuleRegistry register(AcopRule rule) {
+		rules.put(rule.getId(), rule);
+		return this;
+	}
+
+	public synchronized AcopRuleRegistry enable(String id) {
+		disabled.remove(id);
+		return this;
+	}
+
+	public synchronized AcopRuleRegistry disable(String id) {
+		disabled.add(id);
+		return this;
+	}
+
+	public synchronized boolean isEnabled(String id) {
+		return rules.containsKey(id) && !disabled.contains(id);
+	}
+
+	/**
+	 * @return the rule with the given id, null if none is registered
+	 */
+	public synchronized AcopRule getRule(String id) {
+		return rules.get(id);
+	}
+
+	/**
+	 * @return enabled rules, cheapest first; rules of equal cost keep registration order
+	 */
+	public synchronized List<AcopRule> getEnabledRules() {
+		List<AcopRule> enabled = new ArrayList<AcopRule>();
+		for (AcopRule rule : rules.values()) {
+			if (!disabled.contains(rule.getId()))
+				enabled.add(rule);
+		}
+		Collections.sort(enabled, new Comparator<AcopRule>() {
+			public int compare(AcopRule first, AcopRule second) {
+				return first.getCost() < second.getCost() ? -1 : (first.getCost() == second.getCost() ? 0 : 1);
+			}
+		});
+		return enabled;
+	}
+
+	/**
+	 * Identifies what the enabled rules would report for a page - the built in rule
+	 * version plus the id and class of every enabled rule. Cached audit results are
+	 * only valid for the rule set version they were produced with.
+	 */
+	public String getRuleSetVersion() {
+		StringBuilder version = new StringBuilder(BuiltInRules.VERSION);
+		for (AcopRule rule : getEnabledRules())
+			version.append(';').append(rule.getId()).append('=').append(rule.getClass().getName());
+		return version.toString();
+	}
+
+	/**
+	 * @return selectors of all enabled rules, the input for one shared element fetch
+	 */
+	public List<ElementSelector> getSelectors() {
+		List<ElementSelector> selectors = new ArrayList<ElementSelector>();
+		for (AcopRule rule : getEnabledRules())
+			selectors.addAll(rule.getSelectors());
+		return selectors;
+	}
+}
@@ -0,0 +1,222 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * State of a single runAcopChecks() call and the page access used by the rules -
+ * the driver it audits, the page data captured for the run and the list findings
+ * are reported to. Each run gets its own context, so audits on different
+ * ACopChecksV1 instances never share state. A context without checks instance
+ * (see StaticHtmlAuditor) serves everything from its snapshot and source scan.
+ *
+ */
+public class AuditContext {
+
+	private final ACopChecksV1 checks;
+	private final List<AcopFinding> findings;
+	private WebDriver driver;
+	private RuleMeter meter = null;
+	private TimeBudget auditBudget = null;
+	private TimeBudget ruleBudget = null;
+	private PageSnapshot snapshot = null;
+	private PageSourceScanner.Result sourceScan = null;
+	private FindingListener findingListener = null;
+	private String url = null;
+	private String framePath = null;
+
+	/**
+	 * @param checks
+	 *            checks instance whose driver and query settings are used for live lookups
+	 * @param findings
+	 *            thread safe list that collects the findings of the run
+	 */
+	public AuditContext(ACopChecksV1 checks, List<AcopFinding> findings) {
+		this.checks = checks;
+		this.findings = findings;
+		this.driver = checks == null ? null : checks.driver;
+	}
+
+	/**
+	 * @return driver of the audited page, null when auditing static html
+	 */
+	public WebDriver getDriver() {
+		return driver;
+	}
+
+	/**
+	 * Routes the page access of the run through another driver, e.g. one that counts calls
+	 */
+	void setDriver(WebDriver driver) {
+		this.driver = driver;
+	}
+
+	/**
+	 * @param meter
+	 *            meter of the rule that uses the context from now on, null for none
+	 */
+	void setMeter(RuleMeter meter) {
+		this.meter = meter;
+	}
+
+	/**
+	 * Records a wait that ran into its time limit for the metered rule
+	 */
+	void timedOut() {
+		if (meter != null)
+			meter.timedOut();
+	}
+
+	/**
+	 * Hands every finding reported to this context to the listener as well
+	 * 
+	 * @param findingListener
+	 *            listener of the run, null for none
+	 * @param url
+	 *            url of the audited page
+	 * @param framePath
+	 *            path of the audited frame, null for the top level document
+	 */
+	void setFindingListener(FindingListener findingListener, String url, String framePath) {
+		this.findingListener = findingListener;
+		this.url = url;
+		this.framePath = framePath;
+	}
+
+	/**
+	 * @param auditBudget
+	 *            budget of the whole audit, null for none
+	 */
+	void setAuditBudget(TimeBudget auditBudget) {
+		this.auditBudget = auditBudget;
+	}
+
+	boolean hasAuditBudget() {
+		return auditBudget != null;
+	}
+
+	/**
+	 * @param ruleBudget
+	 *            budget of the rule that uses the context from now on, null for none
+	 */
+	void setRuleBudget(TimeBudget ruleBudget) {
+		this.ruleBudget = ruleBudget;
+	}
+
+	/**
+	 * Cooperative time check - rules that loop over many elements or wait on the page
+	 * call it between steps; findElements and countElements call it before every lookup.
+	 *
+	 * @throws AuditTimeoutException
+	 *             if the budget of the running rule or of the whole audit is used up
+	 */
+	public void checkDeadline() {
+		if (auditBudget != null && auditBudget.isExpired())
+			throw new AuditTimeoutException("Audit time budget of " + auditBudget.getLimitMillis() + " ms used up", true);
+		if (ruleBudget != null && ruleBudget.isExpired())
+			throw new AuditTimeoutException("Rule time budget of " + ruleBudget.getLimitMillis() + " ms used up", false);
+	}
+
+	/**
+	 * @param waitMillis
+	 *            time a wait of the running rule would take on its own
+	 * @return waitMillis cut to the time left in the rule and audit budgets, at least 0
+	 */
+	long boundWait(long waitMillis) {
+		long bound = waitMillis;
+		if (auditBudget != null)
+			bound = Math.min(bound, auditBudget.remainingMillis());
+		if (ruleBudget != null)
+			bound = Math.min(bound, ruleBudget.remainingMillis());
+		return Math.max(bound, 0);
+	}
+
+	public List<AcopFinding> getFindings() {
+		return findings;
+	}
+
+	/**
+	 * Adds a finding to the results of this run and hands it to the finding listener
+	 */
+	public void report(AcopFinding finding) {
+		findings.add(finding);
+		if (findingListener != null)
+			findingListener.findingRaised(url, framePath == null ? finding : finding.inFrame(framePath));
+	}
+
+	/**
+	 * @param selector
+	 *            elements needed by a rule
+	 * @return matching elements in document order, from the snapshot if one was
+	 *         captured, otherwise queried through webdriver
+	 */
+	public List<PageElement> findElements(ElementSelector selector) {
+		checkDeadline();
+		List<PageElement> found;
+		if (snapshot != null)
+			found = snapshot.findElements(selector);
+		else if (checks == null)
+			found = new ArrayList<PageElement>();
+		else
+			found = checks.findPageElements(this, selector);
+		if (meter != null)
+			meter.examined(found.size());
+		return found;
+	}
+
+	/**
+	 * @param selector
+	 *            elements to count
+	 * @param found
+	 *            number of elements already found for the selector
+	 * @return number of matching elements once the page is ready
+	 */
+	public int countElements(ElementSelector selector, int found) {
+		if (snapshot != null || checks == null)
+			return found;
+		checkDeadline();
+		return checks.countElements(this, selector.getXpath());
+	}
+
+	/**
+	 * @return snapshot captured for this run, null if the run queries webdriver directly
+	 */
+	public PageSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	public void setSnapshot(PageSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * @return page source scan for this run, fetched from webdriver on first use
+	 */
+	public PageSourceScanner.Result getSourceScan() {
+		if (sourceScan == null && checks == null)
+			sourceScan = BuiltInRules.SOURCE_SCANNER.scan("");
+		if (sourceScan == null)
+			sourceScan = BuiltInRules.SOURCE_SCANNER.scan(driver.getPageSource());
+		return sourceScan;
+	}
+
+	public void setSourceScan(PageSourceScanner.Result sourceScan) {
+		this.sourceScan = sourceScan;
+	}
+
+	/**
+	 * @return context on the same page data that reports to another findings list; the
+	 *         finding listener is not passed on, the findings reach it once they are
+	 *         reported to this context
+	 */
+	AuditContext withFindings(List<AcopFinding> findings) {
+		AuditContext context = new AuditContext(checks, findings);
+		context.driver = driver;
+		context.auditBudget = auditBudget;
+		context.snapshot = snapshot;
+		context.sourceScan = sourceScan;
+		return context;
+	}
+}
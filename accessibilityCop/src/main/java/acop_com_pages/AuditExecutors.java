@@ -0,0 +1,70 @@
+package acop_com_pages;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Executors for ACopChecksV1.runAcopChecksAsync(). An audit spends most of its time
+ * waiting on the browser, so one thread per audit is cheap with virtual threads
+ * (java 21 and later); older runtimes get a cached pool of daemon threads.
+ *
+ * 	checks.setExecutor(AuditExecutors.newVirtualThreadExecutor());
+ *
+ */
+public final class AuditExecutors {
+
+	private static Log logger = ACopChecksV1.getLog(AuditExecutors.class);
+
+	private static ExecutorService shared = null;
+
+	private AuditExecutors() {
+	}
+
+	/**
+	 * @return executor that starts a virtual thread per task, null if the runtime has no virtual threads
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			// looked up by reflection, the module is built for java 8
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (NoSuchMethodException ex) {
+			return null;
+		} catch (Exception ex) {
+			logger.error("Virtual thread executor could not be created Error is " + ex);
+			return null;
+		}
+	}
+
+	/**
+	 * @return pool that creates daemon threads as needed and drops them after a minute idle
+	 */
+	public static ExecutorService newDaemonThreadPool() {
+		final AtomicInteger created = new AtomicInteger();
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "acop-audit-" + created.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * @return executor shared by all checks without an executor of their own - virtual
+	 *         threads if available, daemon threads otherwise; never shut down
+	 */
+	static synchronized ExecutorService shared() {
+		if (shared == null) {
+			shared = newVirtualThreadExecutor();
+			if (shared == null)
+				shared = newDaemonThreadPool();
+		}
+		return shared;
+	}
+}
@@ -0,0 +1,12 @@
+package acop_com_pages;
+
+/**
+ * Receives audit results from AcopBatchRunner as soon as each page is finished.
+ * Calls are made from the runner's worker threads one at a time, so an
+ * implementation does not need its own locking.
+ *
+ */
+public interface AuditListener {
+
+	void onResult(AuditResult result);
+}
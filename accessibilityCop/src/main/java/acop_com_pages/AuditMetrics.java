@@ -0,0 +1,86 @@
+package acop_com_pages;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cost of auditing one document. Driver calls include what the rules share -
+ * page source, snapshot capture, result cache lookup - so they are at least the
+ * sum of the rule calls.
+ *
+ */
+public class AuditMetrics {
+
+	private final String url;
+	private final String framePath;
+	private final boolean cached;
+	private final long wallNanos;
+	private final long driverCalls;
+	private final int findings;
+	private final List<RuleMetrics> rules;
+
+	/**
+	 * @param url
+	 *            url of the audited page
+	 * @param framePath
+	 *            path of the audited frame, null for the page itself
+	 * @param cached
+	 *            true if the findings came from the result cache and no rule ran
+	 * @param wallNanos
+	 *            time spent on the document
+	 * @param driverCalls
+	 *            webdriver commands sent for the document
+	 * @param findings
+	 *            findings reported for the document
+	 * @param rules
+	 *            metrics of every rule that ran, in rule order
+	 */
+	public AuditMetrics(String url, String framePath, boolean cached, long wallNanos, long driverCalls, int findings,
+			List<RuleMetrics> rules) {
+		this.url = url;
+		this.framePath = framePath;
+		this.cached = cached;
+		this.wallNanos = wallNanos;
+		this.driverCalls = driverCalls;
+		this.findings = findings;
+		this.rules = Collections.unmodifiableList(rules);
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getFramePath() {
+		return framePath;
+	}
+
+	public boolean isCached() {
+		return cached;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	public long getDriverCalls() {
+		return driverCalls;
+	}
+
+	public int getFindings() {
+		return findings;
+	}
+
+	public List<RuleMetrics> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return total of the timeouts of all rules
+	 */
+	public int getTimeouts() {
+		int timeouts = 0;
+		for (RuleMetrics rule : rules)
+			timeouts += rule.getTimeouts();
+		return timeouts;
+	}
+}
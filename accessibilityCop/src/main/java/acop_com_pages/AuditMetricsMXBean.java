@@ -0,0 +1,41 @@
+package acop_com_pages;
+
+import java.util.Map;
+
+/**
+ * Management interface of the audit metrics, see JmxMetricsSink
+ *
+ */
+public interface AuditMetricsMXBean {
+
+	/**
+	 * @return documents audited, including the ones answered from the result cache
+	 */
+	long getAuditCount();
+
+	/**
+	 * @return documents answered from the result cache
+	 */
+	long getCachedAuditCount();
+
+	long getDriverCalls();
+
+	long getFindings();
+
+	long getTimeouts();
+
+	/**
+	 * @return mean wall time per audited document in milliseconds
+	 */
+	double getMeanAuditMillis();
+
+	/**
+	 * @return totals per rule id
+	 */
+	Map<String, RuleStatistics> getRuleStatistics();
+
+	/**
+	 * Clears all totals and the recent audits
+	 */
+	void reset();
+}
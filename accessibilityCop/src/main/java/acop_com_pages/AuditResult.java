@@ -0,0 +1,74 @@
+package acop_com_pages;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of auditing a single url with AcopBatchRunner
+ *
+ */
+public class AuditResult {
+
+	public enum Status {
+		/** all checks ran, findings holds everything that was found */
+		COMPLETED,
+		/** the audit ran into a time budget (see ACopChecksV1.setTimeBudgets), findings holds what was found until then */
+		PARTIAL,
+		/** the page did not load or audit within the per url timeout */
+		TIMED_OUT,
+		/** the page could not be loaded or audited, see getError() */
+		FAILED
+	}
+
+	private final String url;
+	private final Status status;
+	private final List<AcopFinding> findings;
+	private final Throwable error;
+	private final long elapsedMillis;
+
+	public AuditResult(String url, Status status, List<AcopFinding> findings, Throwable error, long elapsedMillis) {
+		this.url = url;
+		this.status = status;
+		this.findings = findings == null ? Collections.<AcopFinding>emptyList() : findings;
+		this.error = error;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return accessibility findings on the page, empty unless the status is COMPLETED or PARTIAL
+	 */
+	public List<AcopFinding> getFindings() {
+		return findings;
+	}
+
+	/**
+	 * @return messages of getFindings(), as reported in acopErrorList
+	 */
+	public List<String> getErrors() {
+		return new FindingMessageList(findings);
+	}
+
+	/**
+	 * @return cause of a FAILED audit, null otherwise
+	 */
+	public Throwable getError() {
+		return error;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return url + " " + status + " - " + findings.size() + " errors in " + elapsedMillis + " ms";
+	}
+}
@@ -0,0 +1,337 @@
+package acop_com_pages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Findings of already audited pages, keyed by a SHA-256 hash of the page source
+ * and the rule set version. A page whose source did not change since it was
+ * audited is answered from the cache without looking at its elements again.
+ * 	- at most maxEntries pages are kept, the least recently used one is evicted first
+ * 	- with a store file every new entry is appended to the file and the file is
+ * 	  read back when the next cache is created on it, so results survive between
+ * 	  runs; the file is rewritten with the live entries when it is loaded with stale
+ * 	  ones, once its stale records (evicted or replaced entries) outnumber the live ones
+ * 	  and on close() in least recently used order
+ *
+ * 	AuditResultCache cache = new AuditResultCache(10000, new File("acop-results.cache"));
+ * 	checks.setResultCache(cache);
+ *
+ * A cache can be shared between threads and ACopChecksV1 instances.
+ *
+ */
+public class AuditResultCache {
+
+	private static Log logger = ACopChecksV1.getLog(AuditResultCache.class);
+
+	/** Format 3, all strings are length prefixed UTF-8 */
+	private static final int STORE_MAGIC = 0xAC0FCAC3;
+
+	private final int maxEntries;
+	private final Map<String, List<AcopFinding>> entries;
+	private final File storeFile;
+	private DataOutputStream store = null;
+	private int storedRecords = 0;
+	private boolean reordered = false;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * In memory cache
+	 *
+	 * @param maxEntries
+	 *            number of pages kept
+	 */
+	public AuditResultCache(int maxEntries) {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("maxEntries must be at least 1 - " + maxEntries);
+		this.maxEntries = maxEntries;
+		this.storeFile = null;
+		this.entries = createEntries();
+	}
+
+	/**
+	 * Cache backed by an append only store file, loads the entries already in the file
+	 *
+	 * @param maxEntries
+	 *            number of pages kept
+	 * @param storeFile
+	 *            file new entries are appended to, created if missing
+	 * @throws IOException
+	 *             if the file cannot be opened for appending
+	 */
+	public AuditResultCache(int maxEntries, File storeFile) throws IOException {
+		if (maxEntries < 1)
+			throw new IllegalArgumentException("maxEntries must be at least 1 - " + maxEntries);
+		this.maxEntries = maxEntries;
+		this.storeFile = storeFile;
+		this.entries = createEntries();
+		int records = load();
+		if (records != entries.size() || !storeFile.exists())
+			rewrite();
+		else
+			storedRecords = records;
+		openStore();
+	}
+
+	private void openStore() throws IOException {
+		store = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storeFile, true)));
+	}
+
+	/**
+	 * @return map in access order that drops the least recently used entry once it holds more than maxEntries
+	 */
+	private Map<String, List<AcopFinding>> createEntries() {
+		return new LinkedHashMap<String, List<AcopFinding>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<AcopFinding>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @param pageSource
+	 *            source of the audited page, line endings are normalized before hashing
+	 * @param ruleSetVersion
+	 *            AcopRuleRegistry.getRuleSetVersion() plus anything else the findings depend on, e.g. the page url
+	 * @return hex encoded SHA-256 of rule set version and page source
+	 */
+	public static String key(String pageSource, String ruleSetVersion) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+			digest.update(ruleSetVersion.getBytes("UTF-8"));
+			digest.update((byte) 0);
+			digest.update(normalize(pageSource).getBytes("UTF-8"));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		} catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException("UTF-8 is not available", ex);
+		}
+		StringBuilder hex = new StringBuilder(64);
+		for (byte b : digest.digest())
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		return hex.toString();
+	}
+
+	/**
+	 * \r\n and \r become \n, so the same page served from different platforms hashes the same
+	 */
+	private static String normalize(String source) {
+		if (source.indexOf('\r') < 0)
+			return source;
+		StringBuilder normalized = new StringBuilder(source.length());
+		for (int i = 0; i < source.length(); i++) {
+			char c = source.charAt(i);
+			if (c != '\r')
+				normalized.append(c);
+			else if (i + 1 >= source.length() || source.charAt(i + 1) != '\n')
+				normalized.append('\n');
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * @return findings stored for the key, null if the page is not cached
+	 */
+	public synchronized List<AcopFinding> get(String key) {
+		List<AcopFinding> findings = entries.get(key);
+		if (findings == null) {
+			misses++;
+		} else {
+			hits++;
+			reordered = true;
+		}
+		return findings;
+	}
+
+	/**
+	 * Stores the findings of an audited page and appends them to the store file.
+	 * The record is encoded before anything is written, so the file never holds half a record
+	 * of an entry that could not be encoded; the store is compacted once stale records
+	 * outnumber the live entries.
+	 */
+	public synchronized void put(String key, List<AcopFinding> findings) {
+		List<AcopFinding> stored = Collections.unmodifiableList(new ArrayList<AcopFinding>(findings));
+		entries.put(key, stored);
+		if (store == null)
+			return;
+		byte[] record;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			writeEntry(out, key, stored);
+			out.flush();
+			record = bytes.toByteArray();
+		} catch (IOException ex) {
+			logger.error("Audit result for " + key + " could not be encoded, keeping it in memory only Error is "
+					+ ex.getMessage());
+			return;
+		}
+		try {
+			store.write(record);
+			store.flush();
+			storedRecords++;
+			if (storedRecords - entries.size() > entries.size())
+				compact();
+		} catch (IOException ex) {
+			logger.error("Audit result store " + storeFile + " could not be written, keeping results in memory only Error is "
+					+ ex.getMessage());
+			closeStore();
+		}
+	}
+
+	/**
+	 * Rewrites the store file with the live entries only
+	 */
+	private void compact() throws IOException {
+		if (logger.isInfoEnabled())
+			logger.info(" Compacting audit result store " + storeFile + " from " + storedRecords + " to " + entries.size()
+					+ " records");
+		closeStore();
+		rewrite();
+		openStore();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Closes the store file, later entries are kept in memory only. The file is rewritten
+	 * with the live entries in least recently used order first if it holds stale records or
+	 * entries were used since, so the next cache loaded from it evicts the same entries.
+	 */
+	public synchronized void close() {
+		if (store == null)
+			return;
+		closeStore();
+		if (storedRecords == entries.size() && !reordered)
+			return;
+		try {
+			rewrite();
+		} catch (IOException ex) {
+			logger.error("Audit result store " + storeFile + " could not be rewritten Error is " + ex.getMessage());
+		}
+	}
+
+	private void closeStore() {
+		if (store == null)
+			return;
+		try {
+			store.close();
+		} catch (IOException ex) {
+			logger.error("Audit result store " + storeFile + " could not be closed Error is " + ex.getMessage());
+		}
+		store = null;
+	}
+
+	/**
+	 * Reads the entries of the store file
+	 *
+	 * @return number of records read, -1 if the file is damaged (e.g. a record cut short by a crash)
+	 */
+	private int load() {
+		if (!storeFile.exists())
+			return 0;
+		int records = 0;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(storeFile)));
+			if (in.readInt() != STORE_MAGIC) {
+				logger.error("Audit result store " + storeFile + " has an unknown format and is replaced");
+				return -1;
+			}
+			while (true) {
+				in.mark(1);
+				if (in.read() < 0)
+					break;
+				in.reset();
+				String key = AcopFinding.readString(in);
+				int count = in.readInt();
+				List<AcopFinding> findings = new ArrayList<AcopFinding>(count);
+				for (int i = 0; i < count; i++)
+					findings.add(AcopFinding.read(in));
+				entries.put(key, Collections.unmodifiableList(findings));
+				records++;
+			}
+		} catch (EOFException ex) {
+			logger.error("Audit result store " + storeFile + " ends with an incomplete record");
+			return -1;
+		} catch (IOException ex) {
+			logger.error("Audit result store " + storeFile + " could not be read completely Error is " + ex.getMessage());
+			return -1;
+		} catch (IllegalArgumentException ex) {
+			logger.error("Audit result store " + storeFile + " could not be read completely Error is " + ex.getMessage());
+			return -1;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ex) {
+					logger.error("Audit result store " + storeFile + " could not be closed Error is " + ex.getMessage());
+				}
+			}
+		}
+		if (logger.isInfoEnabled())
+			logger.info(" Loaded " + entries.size() + " cached audit results from " + storeFile);
+		return records;
+	}
+
+	/**
+	 * Replaces the store file with the entries currently in memory, least recently used first
+	 */
+	private void rewrite() throws IOException {
+		File temp = new File(storeFile.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			out.writeInt(STORE_MAGIC);
+			for (Map.Entry<String, List<AcopFinding>> entry : entries.entrySet())
+				writeEntry(out, entry.getKey(), entry.getValue());
+		} finally {
+			out.close();
+		}
+		if (storeFile.exists() && !storeFile.delete())
+			throw new IOException("Audit result store " + storeFile + " could not be replaced");
+		if (!temp.renameTo(storeFile))
+			throw new IOException("Audit result store " + temp + " could not be renamed to " + storeFile);
+		storedRecords = entries.size();
+		reordered = false;
+	}
+
+	private static void writeEntry(DataOutputStream out, String key, List<AcopFinding> findings) throws IOException {
+		AcopFinding.writeString(out, key);
+		out.writeInt(findings.size());
+		for (AcopFinding finding : findings)
+			finding.write(out);
+	}
+}
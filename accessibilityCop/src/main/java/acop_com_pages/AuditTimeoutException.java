@@ -0,0 +1,30 @@
+package acop_com_pages;
+
+/**
+ * Thrown by AuditContext.checkDeadline() when the time budget of the running rule
+ * or of the whole audit is used up. The audit catches it, keeps what the rule
+ * reported so far and reports the rule as timed out; rules should let it pass.
+ *
+ */
+public class AuditTimeoutException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final boolean wholeAudit;
+
+	/**
+	 * @param wholeAudit
+	 *            true if the audit budget ran out, false if only the rule budget did
+	 */
+	public AuditTimeoutException(String message, boolean wholeAudit) {
+		super(message);
+		this.wholeAudit = wholeAudit;
+	}
+
+	/**
+	 * @return true if the audit budget ran out and no further rule is run
+	 */
+	public boolean isWholeAudit() {
+		return wholeAudit;
+	}
+}
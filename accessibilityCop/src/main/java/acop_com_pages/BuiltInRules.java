@@ -0,0 +1,737 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * The accessibility checkpoints shipped with accessibilityCop, see ACopChecksV1 for
+ * the description of every rule. Rule ids are the checkpoint numbers.
+ *
+ */
+public final class BuiltInRules {
+
+	private static Log logger = ACopChecksV1.getLog(BuiltInRules.class);
+
+	public static final String ALT_TEXT_IMAGE = "1";
+	public static final String ALT_TEXT_INPUT = "2";
+	public static final String ALT_TEXT_AREA = "4";
+	public static final String TITLE = "5";
+	public static final String FRAMES = "6";
+	public static final String IFRAMES = "7";
+	public static final String DOCTYPE = "8";
+	public static final String VISUAL_FORMATTING = "9";
+	public static final String HTML_LANG = "10";
+	public static final String HYPERLINKS = "11";
+	public static final String FLASHING_CONTENT = "12";
+	public static final String TABLE_SUMMARY = "13";
+	public static final String TABLE_HEADERS = "14";
+	public static final String HEADINGS = "15";
+	public static final String FORMS = "16";
+
+	/** version of the built in rules, changed whenever a rule reports different findings for the same page */
+	public static final String VERSION = "0.1.1-5";
+
+	/** rules reading the page source are cheapest, the source is fetched once per run */
+	private static final int SOURCE_COST = 10;
+	private static final int SINGLE_ELEMENT_COST = 20;
+	private static final int ELEMENT_COST = 30;
+	private static final int MULTI_ATTRIBUTE_COST = 40;
+	private static final int TEXT_COST = 50;
+
+	private static final String altAttribute = "alt";
+	private static final String srcAttribute = "src";
+	private static final String hrefAttribute = "href";
+	private static final String titleAttribute = "title";
+	private static final String langAttribute = "lang";
+	private static final String summaryAttribute = "summary";
+	private static final String roleAttribute = "role";
+	private static final String scopeAttribute = "scope";
+	private static final String headerAttribute = "header";
+	private static final String idAttribute = "id";
+	private static final String typeAttribute = "type";
+	private static final String valueAttribute = "value";
+	private static final String forAttribute = "for";
+	private static final String ariaLabelAttribute = "aria-label";
+	private static final String ariaLabelledByAttribute = "aria-labelledby";
+
+	private static final String[] visualFormattingTags = { "<b>", "<i>", "<center>", "<font>", "<u>" };
+	private static final String[] flashingContentTags = { "<blink>", "<marquee>" };
+
+	/** patterns looked up in the page source by rules 8, 9 and 12 */
+	static final PageSourceScanner SOURCE_SCANNER = new PageSourceScanner("DOCTYPE", "frame", "iframe",
+			"<b>", "<i>", "<center>", "<font>", "<u>", "<blink>", "<marquee>");
+
+	private BuiltInRules() {
+	}
+
+	/**
+	 * @return new instances of all built in rules
+	 */
+	public static List<AcopRule> all() {
+		return Arrays.<AcopRule>asList(
+				new RequiredAttributeRule(ALT_TEXT_IMAGE, "ALT TEXT for Images", MULTI_ATTRIBUTE_COST,
+						new ElementSelector("//img", "img").withAttributes(altAttribute, srcAttribute),
+						altAttribute, "Alternate Text", srcAttribute, "IMAGE Source",
+						"FAILURE Accessbility Rule 1 - Alternate Text Missing for Image - "),
+				new RequiredAttributeRule(ALT_TEXT_INPUT, "ALT TEXT for Input Images", ELEMENT_COST,
+						new ElementSelector("//input[@type='image']", "input").withAttribute("type", "image")
+								.withAttributes(altAttribute, srcAttribute),
+						altAttribute, "Alternate Text", srcAttribute, "IMAGE Source",
+						" FAILURE Accessbility Rule 2 - Alternate Text Missing for Image - "),
+				new RequiredAttributeRule(ALT_TEXT_AREA, "ALT TEXT for Area tags", ELEMENT_COST,
+						new ElementSelector("//area", "area").withAttributes(altAttribute, hrefAttribute),
+						altAttribute, "Alternate Text", hrefAttribute, "IMAGE Source",
+						" FAILURE Accessbility Rule 4 - Alternate Text Missing for Image - "),
+				new TitleRule(),
+				new RequiredAttributeRule(FRAMES, "Frame elements should have title attributes", ELEMENT_COST,
+						new ElementSelector("//frameset/frame", "frame").withAncestor("frameset")
+								.withAttributes(titleAttribute, hrefAttribute),
+						titleAttribute, "Title Text", hrefAttribute, "FrameSet Source",
+						" FAILURE Accessbility Rule 6 - Frame element Title text is missing - "),
+				new RequiredAttributeRule(IFRAMES, "iFrame elements should have title attributes", ELEMENT_COST,
+						new ElementSelector("//iframe", "iframe").withAttributes(titleAttribute, srcAttribute),
+						titleAttribute, "Title Text", srcAttribute, "iFrame Source",
+						" FAILURE Accessbility Rule 7 - iFrame element Title text is missing - "),
+				new DocTypeRule(),
+				new VisualFormattingRule(),
+				new LanguageRule(),
+				new HyperLinkTextRule(),
+				new FlashingContentRule(),
+				new TableSummaryRule(),
+				new TableHeaderRule(),
+				new HeadingRule(),
+				new FormLabelRule());
+	}
+
+	private static void fail(AuditContext context, AcopFinding finding) {
+		context.report(finding);
+		if (logger.isInfoEnabled())
+			logger.info(finding.getMessage());
+	}
+
+	private static void start(AcopRule rule) {
+		if (logger.isInfoEnabled())
+			logger.info(" " + rule + " ");
+	}
+
+	private static void notApplicable(AcopRule rule) {
+		if (logger.isInfoEnabled())
+			logger.info(" " + rule + " - does not apply to this webpage ");
+	}
+
+	/**
+	 * Visitor of a built in rule - logs the start of the rule and reports it as not
+	 * applicable if no element was visited
+	 */
+	private abstract static class RuleVisitor implements ElementVisitor {
+
+		private final AcopRule rule;
+		/** number of elements visited so far */
+		protected int visited = 0;
+
+		RuleVisitor(AcopRule rule) {
+			this.rule = rule;
+			start(rule);
+		}
+
+		public final void visit(PageElement element, ElementSelector selector, int index) {
+			visited++;
+			element(element, selector, index);
+		}
+
+		protected abstract void element(PageElement element, ElementSelector selector, int index);
+
+		public final void end() {
+			if (visited == 0)
+				noElements();
+			else
+				finish();
+		}
+
+		/**
+		 * Called at the end if no element was visited
+		 */
+		protected void noElements() {
+			notApplicable(rule);
+		}
+
+		/**
+		 * Called at the end if at least one element was visited
+		 */
+		protected void finish() {
+		}
+	}
+
+	/**
+	 * @return the pattern matched earliest in the page source, null if none matched
+	 */
+	private static String firstMatch(PageSourceScanner.Result scan, String[] patterns) {
+		String first = null;
+		int firstOffset = Integer.MAX_VALUE;
+		for (String pattern : patterns) {
+			int offset = scan.firstOffset(pattern);
+			if (offset >= 0 && offset < firstOffset) {
+				first = pattern;
+				firstOffset = offset;
+			}
+		}
+		return first;
+	}
+
+
+	/** 1, 2, 4, 6, 7
+	 * Every selected element should have a non empty attribute (alt or title)
+	 *
+	 */
+	static class RequiredAttributeRule extends AbstractStreamingAcopRule implements IncrementalAcopRule {
+
+		private final String attribute;
+		private final String attributeLabel;
+		private final String locatorAttribute;
+		private final String locatorLabel;
+		private final String failure;
+
+		RequiredAttributeRule(String id, String description, int cost, ElementSelector selector,
+				String attribute, String attributeLabel, String locatorAttribute, String locatorLabel,
+				String failure) {
+			super(id, description, cost, selector);
+			this.attribute = attribute;
+			this.attributeLabel = attributeLabel;
+			this.locatorAttribute = locatorAttribute;
+			this.locatorLabel = locatorLabel;
+			this.failure = failure;
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				protected void element(PageElement element, ElementSelector selector, int index) {
+					String attributeText = element.getAttribute(attribute);
+					boolean failed = isEmpty(attributeText);
+					if (!failed && !logger.isDebugEnabled())
+						return;
+					// the locator (src, href) is only read for failures and trace output
+					String locatorText = element.getAttribute(locatorAttribute);
+					if (logger.isDebugEnabled())
+						logger.debug(" " + locatorLabel + " - " + locatorText + "  " + attributeLabel + " - " + attributeText);
+					if(failed)
+						fail(context, AcopFinding.elementError(getId(), failure, selector, index, attribute, locatorText));
+				}
+			};
+		}
+	}
+
+
+	/** 5
+	 * TITLE - <TITLE> </TITLE>
+	 * 	- Page title element should not be empty or missing
+	 * 	- There should not be more than one page title
+	 */
+	static class TitleRule extends AbstractStreamingAcopRule {
+
+		TitleRule() {
+			super(TITLE, "Page Title Should not be empty", SINGLE_ELEMENT_COST,
+					new ElementSelector("//title", "title").withText());
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				private PageElement first = null;
+
+				protected void element(PageElement element, ElementSelector selector, int index) {
+					if (first == null)
+						first = element;
+				}
+
+				protected void finish() {
+					int count = context.countElements(getSelector(), visited);
+					if(count > 1)
+						fail(context, AcopFinding.pageError(getId(), " FAILURE Accessbility Rule 5 - More than one Page Title found - "));
+					String titleText = context.getSnapshot() != null ? first.getText() : context.getDriver().getTitle();
+					if (logger.isDebugEnabled())
+						logger.debug(" Page Title Text - " + titleText);
+					if(isEmpty(titleText))
+						fail(context, AcopFinding.pageError(getId(), " FAILURE Accessbility Rule 5 - Page Title is Missing for Webpage - "));
+				}
+			};
+		}
+	}
+
+
+	/** 8
+	 * DOCTYPE - <!DOCTYPE Resource SYSTEM 'foo.dtd'>
+	 * 	- Doctype should be specified if frame or iframe elements exist on the page
+	 *
+	 */
+	static class DocTypeRule extends AbstractAcopRule implements PageSourceRule {
+
+		DocTypeRule() {
+			super(DOCTYPE, "DOCTYPE should be specified if frames exist on page", SOURCE_COST);
+		}
+
+		public void check(AuditContext context) {
+			start(this);
+			PageSourceScanner.Result scan = context.getSourceScan();
+			if(scan.contains("iframe") || scan.contains("frame")){
+				if(! (scan.contains("DOCTYPE")))
+					fail(context, AcopFinding.pageError(getId(), " FAILURE Accessbility Rule 8 - DOCTYPE is missing for this webpage"));
+			}else {
+				notApplicable(this);
+			}
+		}
+	}
+
+
+	/** 9
+	 * VISUAL FORMATTING <b></b>, <i></i>, <center></center>, <font></font>, <u></u>
+	 * 	- HTML visual formatting elements should be avoided
+	 * 	- CSS should be used for formatting
+	 *
+	 */
+	static class VisualFormattingRule extends AbstractAcopRule implements PageSourceRule {
+
+		VisualFormattingRule() {
+			super(VISUAL_FORMATTING, "HTML visual formatting elements should be avoided on page, use CSS instead",
+					SOURCE_COST);
+		}
+
+		public void check(AuditContext context) {
+			start(this);
+			PageSourceScanner.Result scan = context.getSourceScan();
+			String found = firstMatch(scan, visualFormattingTags);
+			if (found != null){
+				fail(context, AcopFinding.sourceError(getId(), " FAILURE Accessbility Rule 9 -  HTML visual formatting elements " +
+						"<b></b>, <i></i>, <center></center>, <font></font>, <u></u> should be avoided on page - Use CSS instead - ",
+						found, scan.firstOffset(found)));
+			}else {
+				notApplicable(this);
+			}
+		}
+	}
+
+
+	/** 10
+	 * HTML LANG <HTML LANG='en'></HTML>
+	 * 	- Primary language of a page should be declared within html lang attribute
+	 *
+	 */
+	static class LanguageRule extends AbstractStreamingAcopRule {
+
+		LanguageRule() {
+			super(HTML_LANG, "Primary language of a page should be declared within html lang attribute",
+					SINGLE_ELEMENT_COST, new ElementSelector("//html", "html").withAttributes(langAttribute));
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				protected void element(PageElement element, ElementSelector selector, int index) {
+					if (index > 0)
+						return;
+					String langText = element.getAttribute(langAttribute);
+					if (logger.isDebugEnabled())
+						logger.debug(" Language Attribute for the Webpage - " + langText);
+					if(isEmpty(langText))
+						fail(context, AcopFinding.elementError(getId(), " FAILURE Accessbility Rule 10 - Primary language of a page " +
+								"should be declared within html lang attribute ", selector, index, langAttribute, null));
+				}
+			};
+		}
+	}
+
+
+	/** 11
+	 * HYPERLINKS <body><a href="www.intuit.com">Go to Intuit</a></body>
+	 * 	- Hyperlinks should always have text associated with them
+	 * 	- There should not be duplicate text for hyperlinks on the same page
+	 *
+	 * Link text is normalized (white space and case) and indexed by text in one
+	 * pass; links sharing a text are only reported if they point to different
+	 * targets, one finding per text at its first link.
+	 *
+	 */
+	static class HyperLinkTextRule extends AbstractStreamingAcopRule {
+
+		HyperLinkTextRule() {
+			super(HYPERLINKS, "Hyperlinks should always have text associated with them", TEXT_COST,
+					new ElementSelector("//a", "a").withText().withAttributes(hrefAttribute));
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				/** links by normalized text, in order of the first link with the text */
+				private final Map<String, LinkTargets> byText = new LinkedHashMap<String, LinkTargets>();
+
+				protected void element(PageElement link, ElementSelector selector, int index) {
+					String linkText = link.getText();
+					String hrefAttributeText = link.getAttribute(hrefAttribute);
+					if (logger.isDebugEnabled())
+						logger.debug(" HyperLink Source - " +hrefAttributeText  + " HyperLink Text - " + linkText);
+					if (isEmpty(linkText)) {
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 11 - Hyperlinks should " +
+								"always have text associated with them for - ", selector, index, null, hrefAttributeText));
+						return;
+					}
+					if (isEmpty(hrefAttributeText))
+						return;
+					String text = normalizeLinkText(linkText);
+					LinkTargets targets = byText.get(text);
+					if (targets == null)
+						byText.put(text, new LinkTargets(selector, index, hrefAttributeText.trim()));
+					else
+						targets.add(hrefAttributeText.trim());
+				}
+
+				protected void finish() {
+					for (Map.Entry<String, LinkTargets> entry : byText.entrySet()) {
+						LinkTargets targets = entry.getValue();
+						if (targets.others == null)
+							continue;
+						StringBuilder detail = new StringBuilder("'").append(entry.getKey()).append("' - ")
+								.append(targets.first);
+						for (String href : targets.others)
+							detail.append(", ").append(href);
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 11 - Hyperlinks with " +
+								"the same text should not point to different targets for - ", targets.selector,
+								targets.index, hrefAttribute, detail.toString()));
+					}
+					if (logger.isInfoEnabled())
+						logger.info(" Total number of HyperLinks on this webpage " + context.countElements(getSelector(), visited));
+				}
+			};
+		}
+
+		/**
+		 * Lower case text with white space runs collapsed into one space
+		 */
+		static String normalizeLinkText(String text) {
+			StringBuilder normalized = new StringBuilder(text.length());
+			boolean space = false;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (Character.isWhitespace(c) || c == '\u00a0') {
+					space = normalized.length() > 0;
+				} else {
+					if (space)
+						normalized.append(' ');
+					normalized.append(Character.toLowerCase(c));
+					space = false;
+				}
+			}
+			return normalized.toString();
+		}
+
+		/**
+		 * Targets of the links sharing one text - the first link, and the distinct
+		 * other targets once a link points somewhere else
+		 */
+		private static class LinkTargets {
+
+			private final ElementSelector selector;
+			private final int index;
+			private final String first;
+			private Set<String> others = null;
+
+			LinkTargets(ElementSelector selector, int index, String first) {
+				this.selector = selector;
+				this.index = index;
+				this.first = first;
+			}
+
+			void add(String href) {
+				if (href.equals(first))
+					return;
+				if (others == null)
+					others = new LinkedHashSet<String>();
+				others.add(href);
+			}
+		}
+	}
+
+
+	/** 12
+	 * FLASHING CONTENT <blink> <marquee>
+	 * 	- blink and marquee elements must not be used
+	 *
+	 */
+	static class FlashingContentRule extends AbstractAcopRule implements PageSourceRule {
+
+		FlashingContentRule() {
+			super(FLASHING_CONTENT, "FLASHING CONTENT blink and marquee elements must not be used", SOURCE_COST);
+		}
+
+		public void check(AuditContext context) {
+			start(this);
+			PageSourceScanner.Result scan = context.getSourceScan();
+			String found = firstMatch(scan, flashingContentTags);
+			if(found != null){
+				fail(context, AcopFinding.sourceError(getId(), " FAILURE Accessbility Rule 12 -  FLASHING CONTENT blink and " +
+						"marquee elements must not be used - ", found, scan.firstOffset(found)));
+			}else {
+				notApplicable(this);
+			}
+		}
+	}
+
+
+	/** 13
+	 * TABLE <table summary="summary"><th>Table Heading</th><tr><td>Data 1</td></tr></table>
+	 * 	- Table should have a table header
+	 * 	- Table should have a non empty summary attribute
+	 *
+	 */
+	static class TableSummaryRule extends AbstractStreamingAcopRule implements IncrementalAcopRule {
+
+		TableSummaryRule() {
+			super(TABLE_SUMMARY, "Table should have a non empty summary attribute", ELEMENT_COST,
+					new ElementSelector("//table", "table").withAttributes(summaryAttribute));
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				protected void element(PageElement table, ElementSelector selector, int index) {
+					String summaryAttributeText = table.getAttribute(summaryAttribute);
+					if (logger.isDebugEnabled())
+						logger.debug(" Table Summary Text - " + summaryAttributeText);
+					if(isEmpty(summaryAttributeText))
+						fail(context, AcopFinding.elementError(getId(), " FAILURE Accessbility Rule 13 - " +
+								"Table should have a non empty summary attribute  ", selector, index, summaryAttribute, null));
+				}
+			};
+		}
+	}
+
+
+	/** 14
+	 * TABLE <table summary="summary"><th role="columnheader" ...>
+	 * 	- Table headers should have a non empty scope attribute specifying whether it is for a row or column
+	 * 	- Use SCOPE, ROLE, HEADER, ID for screen reader
+	 *
+	 */
+	static class TableHeaderRule extends AbstractStreamingAcopRule implements IncrementalAcopRule {
+
+		TableHeaderRule() {
+			super(TABLE_HEADERS, "Table Headers should have attributes to specify row and column headers",
+					MULTI_ATTRIBUTE_COST, new ElementSelector("//table//th", "th").withAncestor("table")
+							.withAttributes(headerAttribute, roleAttribute, scopeAttribute));
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				protected void element(PageElement header, ElementSelector selector, int index) {
+					// each attribute is read once; without the debug trace reading stops at the first one present
+					boolean debug = logger.isDebugEnabled();
+					String headers = header.getAttribute(headerAttribute);
+					String role = headers == null || debug ? header.getAttribute(roleAttribute) : null;
+					String scope = (headers == null && role == null) || debug ? header.getAttribute(scopeAttribute) : null;
+					if (debug)
+						logger.debug(" >>Header - " + headers + " >> Role - " + role + " >>Scope - " + scope);
+					if (headers == null && role == null && scope == null)
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 14 - Table Headers should " +
+								"have attributes to specify row and column headers ", selector, index, scopeAttribute, null));
+				}
+			};
+		}
+	}
+
+
+	/** 15
+	 * HEADINGS <body><h1>Heading 1</h1><h2>Heading 2</h2><h3>Heading 3</h3></body>
+	 * 	- Page must contain atleast one h1 element
+	 * 	- Headings (h1..h6) should have non empty text
+	 * 	- Heading elements that follow the h1 element should be properly nested
+	 *
+	 * All headings are fetched with one query and checked in document order. A
+	 * stack holds the enclosing heading of every level; a heading more than one
+	 * level below its enclosing heading skips a level.
+	 *
+	 */
+	static class HeadingRule extends AbstractStreamingAcopRule {
+
+		HeadingRule() {
+			super(HEADINGS, "Headings should be present, non empty and properly nested", TEXT_COST,
+					new ElementSelector("//h1 | //h2 | //h3 | //h4 | //h5 | //h6", "h1", "h2", "h3", "h4", "h5", "h6")
+							.withText());
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				/** levels of the enclosing headings, innermost last; stack[0] is the document */
+				private final int[] levels = new int[7];
+				/** position of the heading at each stack entry */
+				private final int[] positions = new int[7];
+				private int depth = 0;
+				private boolean h1Found = false;
+
+				protected void element(PageElement heading, ElementSelector selector, int index) {
+					String tagName = heading.getTagName();
+					int level = tagName.charAt(1) - '0';
+					String headingText = heading.getText();
+					if (logger.isDebugEnabled())
+						logger.debug(" Heading - " + tagName + " Heading Text - " + headingText);
+					if (isEmpty(headingText))
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 15 - Heading text " +
+								"is missing for - ", selector, index, null, tagName + " at position " + (index + 1)));
+					if (level == 1)
+						h1Found = true;
+					// headings before the first h1 (site banners, navigation) are not checked for nesting
+					if (!h1Found)
+						return;
+					while (depth > 0 && levels[depth] >= level)
+						depth--;
+					if (depth > 0 && level > levels[depth] + 1)
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 15 - Heading levels " +
+								"should not be skipped for - ", selector, index, null, tagName + " at position " + (index + 1)
+								+ " after h" + levels[depth] + " at position " + (positions[depth] + 1)));
+					depth++;
+					levels[depth] = level;
+					positions[depth] = index;
+				}
+
+				protected void finish() {
+					if (!h1Found)
+						missingH1();
+				}
+
+				protected void noElements() {
+					missingH1();
+				}
+
+				private void missingH1() {
+					fail(context, AcopFinding.pageError(getId(), "FAILURE Accessbility Rule 15 - Page must contain " +
+							"atleast one h1 element"));
+				}
+			};
+		}
+	}
+
+
+	/** 16
+	 * FORMS <form><input id='name' type='text'><label for='name'>Name</label></form>
+	 * 	- Every form element should have a corresponding label (the label 'for' attribute should match the form field 'id' attribute)
+	 * 	- Form input elements of type submit|reset|button should have a non empty 'value' attribute instead of a label
+	 * 	- Labels, legends and buttons should have non empty text
+	 *
+	 * Controls, labels, legends and buttons are fetched with one query and joined
+	 * through an index of the label 'for' ids, so the cost grows linearly with the
+	 * form instead of one label lookup per field. Controls nested in a label, or
+	 * named by aria-label, aria-labelledby or title, count as labelled.
+	 *
+	 */
+	static class FormLabelRule extends AbstractStreamingAcopRule {
+
+		private static final ElementSelector FORM_ELEMENTS = new ElementSelector(
+				"//input | //select | //textarea | //label | //legend | //button",
+				"input", "select", "textarea", "label", "legend", "button").withText()
+				.withAttributes(idAttribute, typeAttribute, valueAttribute, forAttribute, ariaLabelAttribute,
+						ariaLabelledByAttribute, titleAttribute);
+		private static final ElementSelector LABELLED_CONTROLS = new ElementSelector(
+				"//label//input | //label//select | //label//textarea", "input", "select", "textarea")
+				.withAncestor("label");
+
+		FormLabelRule() {
+			super(FORMS, "Form elements should have labels", TEXT_COST, FORM_ELEMENTS, LABELLED_CONTROLS);
+		}
+
+		public ElementVisitor createVisitor(final AuditContext context) {
+			return new RuleVisitor(this) {
+				/** ids named by the 'for' attribute of a label */
+				private final Set<String> labelledIds = new HashSet<String>();
+				/** controls inside a label element */
+				private final Set<PageElement> nested = new HashSet<PageElement>();
+				/** controls that need a label, joined with the labels in finish() */
+				private final List<Control> controls = new ArrayList<Control>();
+
+				protected void element(PageElement element, ElementSelector selector, int index) {
+					if (selector == LABELLED_CONTROLS) {
+						nested.add(element);
+						return;
+					}
+					String tagName = element.getTagName();
+					if ("label".equals(tagName)) {
+						String forText = element.getAttribute(forAttribute);
+						if (!isEmpty(forText))
+							labelledIds.add(forText.trim());
+						emptyText(element, selector, index, tagName, "Labels for form controls should have non empty text");
+					} else if ("legend".equals(tagName)) {
+						emptyText(element, selector, index, tagName, "Legends should have non empty text");
+					} else if ("button".equals(tagName)) {
+						emptyText(element, selector, index, tagName, "Buttons should have non empty text");
+					} else {
+						control(element, selector, index, tagName);
+					}
+				}
+
+				private void emptyText(PageElement element, ElementSelector selector, int index, String tagName,
+						String message) {
+					String text = element.getText();
+					if (logger.isDebugEnabled())
+						logger.debug(" Form element - " + tagName + " Text - " + text);
+					if (isEmpty(text) && isEmpty(element.getAttribute(ariaLabelAttribute)))
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 16 - " + message
+								+ " for - ", selector, index, null, tagName));
+				}
+
+				private void control(PageElement element, ElementSelector selector, int index, String tagName) {
+					String type = "input".equals(tagName) ? element.getAttribute(typeAttribute) : null;
+					type = type == null ? "" : type.trim().toLowerCase();
+					if ("hidden".equals(type) || "image".equals(type))
+						return;
+					if ("submit".equals(type) || "reset".equals(type) || "button".equals(type)) {
+						String valueText = element.getAttribute(valueAttribute);
+						if (logger.isDebugEnabled())
+							logger.debug(" Form element - " + tagName + " type " + type + " Value - " + valueText);
+						if (isEmpty(valueText))
+							fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 16 - Form input " +
+									"elements of type submit|reset|button should have a non empty value attribute for - ",
+									selector, index, valueAttribute, tagName + " type " + type));
+						return;
+					}
+					String idText = element.getAttribute(idAttribute);
+					if (logger.isDebugEnabled())
+						logger.debug(" Form element - " + tagName + " id - " + idText);
+					controls.add(new Control(element, index, tagName, isEmpty(idText) ? null : idText.trim()));
+				}
+
+				protected void finish() {
+					for (Control control : controls) {
+						if ((control.id != null && labelledIds.contains(control.id)) || nested.contains(control.element))
+							continue;
+						// only unlabelled controls pay for reading the aria attributes
+						if (!isEmpty(control.element.getAttribute(ariaLabelAttribute))
+								|| !isEmpty(control.element.getAttribute(ariaLabelledByAttribute))
+								|| !isEmpty(control.element.getAttribute(titleAttribute)))
+							continue;
+						fail(context, AcopFinding.elementError(getId(), "FAILURE Accessbility Rule 16 - Form element " +
+								"should have a corresponding label for - ", FORM_ELEMENTS, control.index, forAttribute,
+								control.tagName + (control.id == null ? "" : " id " + control.id)));
+					}
+				}
+			};
+		}
+
+		/**
+		 * A form control waiting for the label join
+		 */
+		private static class Control {
+
+			private final PageElement element;
+			private final int index;
+			private final String tagName;
+			private final String id;
+
+			Control(PageElement element, int index, String tagName, String id) {
+				this.element = element;
+				this.index = index;
+				this.tagName = tagName;
+				this.id = id;
+			}
+		}
+	}
+}
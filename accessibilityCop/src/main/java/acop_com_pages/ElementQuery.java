@@ -0,0 +1,161 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Batched element lookup for the live webdriver path. One executeScript call
+ * evaluates the xpath with document.evaluate and returns every match together
+ * with the values of the requested attributes and, if asked for, its text -
+ * instead of a findElements call plus getAttribute / getText round-trips per
+ * element. Browsers without document.evaluate (e.g. older HtmlUnit browser
+ * versions) take two calls: findElements, then one script that reads all
+ * matches. Values follow the same rules as a PageSnapshot (src and href come
+ * back resolved). Attributes that were not requested are still read from the
+ * element, one call each.
+ *
+ * 	List<PageElement> cells = ElementQuery.query(driver, "//table//th", Arrays.asList("scope"), true);
+ *
+ */
+public final class ElementQuery {
+
+	private static Log logger = ACopChecksV1.getLog(ElementQuery.class);
+
+	/**
+	 * arguments[0] - xpath or the elements already found, arguments[1] - attribute names,
+	 * arguments[2] - true to read the text
+	 * returns one array per element - [element, tag, text, value1, value2 ...], null values for
+	 * missing attributes; null if an xpath was given and the browser cannot evaluate it
+	 */
+	static final String QUERY_SCRIPT =
+			"var nodes = arguments[0], names = arguments[1], out = [];" +
+			"if (typeof nodes == 'string') {" +
+			"  if (!document.evaluate) return null;" +
+			"  var found = document.evaluate(nodes, document, null, 7, null);" +
+			"  nodes = [];" +
+			"  for (var n = 0; n < found.snapshotLength; n++) nodes.push(found.snapshotItem(n));" +
+			"}" +
+			"var textOf = " + PageSnapshot.TEXT_FUNCTION + ";" +
+			"var resolver = document.createElement('a');" +
+			"for (var i = 0; i < nodes.length; i++) {" +
+			"  var node = nodes[i];" +
+			"  if (node.nodeType != 1) continue;" +
+			"  var record = [node, node.tagName.toLowerCase(), arguments[2] ? textOf(node) : null];" +
+			"  for (var a = 0; a < names.length; a++) {" +
+			"    var value = node.getAttribute(names[a]);" +
+			"    if (value === undefined || (node.hasAttribute && !node.hasAttribute(names[a]))) value = null;" +
+			"    if (value !== null && (names[a] == 'src' || names[a] == 'href')) { resolver.href = value; value = resolver.href; }" +
+			"    record.push(value === null ? null : String(value));" +
+			"  }" +
+			"  out.push(record);" +
+			"}" +
+			"return out;";
+
+	private ElementQuery() {
+	}
+
+	/**
+	 * @param selector
+	 *            elements to read, with the attributes and text it declares
+	 * @return matching elements in document order, null if the driver cannot run the query
+	 */
+	public static List<PageElement> query(WebDriver driver, ElementSelector selector) {
+		return query(driver, selector.getXpath(), selector.getAttributeNames(), selector.isTextRequired());
+	}
+
+	/**
+	 * @param xpath
+	 *            expression selecting the elements
+	 * @param attributeNames
+	 *            attributes read for every match in the same call
+	 * @param withText
+	 *            true to read the text of every match as well
+	 * @return matching elements in document order, null if the driver cannot run the query
+	 */
+	public static List<PageElement> query(WebDriver driver, String xpath, List<String> attributeNames,
+			boolean withText) {
+		if (!(driver instanceof JavascriptExecutor))
+			return null;
+		List<String> names = new ArrayList<String>(attributeNames);
+		Object result;
+		try {
+			JavascriptExecutor executor = (JavascriptExecutor) driver;
+			result = executor.executeScript(QUERY_SCRIPT, xpath, names, Boolean.valueOf(withText));
+			if (result == null) {
+				List<WebElement> found = driver.findElements(By.xpath(xpath));
+				if (found.isEmpty())
+					return new ArrayList<PageElement>();
+				result = executor.executeScript(QUERY_SCRIPT, found, names, Boolean.valueOf(withText));
+			}
+		} catch (WebDriverException ex) {
+			logger.error("Batched query for " + xpath + " failed Error is " + ex.getMessage());
+			return null;
+		} catch (RuntimeException ex) {
+			// some drivers report script errors with their own exception types
+			logger.error("Batched query for " + xpath + " failed Error is " + ex);
+			return null;
+		}
+		if (!(result instanceof List)) {
+			logger.error("Batched query for " + xpath + " failed - unexpected script result " + result);
+			return null;
+		}
+		List<?> records = (List<?>) result;
+		List<PageElement> elements = new ArrayList<PageElement>(records.size());
+		for (Object item : records) {
+			List<?> record = (List<?>) item;
+			Map<String, String> attributes = new HashMap<String, String>();
+			for (int i = 0; i < attributeNames.size(); i++) {
+				Object value = record.get(3 + i);
+				attributes.put(attributeNames.get(i), value == null ? null : String.valueOf(value));
+			}
+			elements.add(new QueriedElement((WebElement) record.get(0), (String) record.get(1), attributes,
+					withText ? (String) record.get(2) : null));
+		}
+		return elements;
+	}
+
+
+	/**
+	 * Element read by a batched query - requested values come from the query,
+	 * anything else from the live element
+	 */
+	static class QueriedElement extends WebPageElement {
+
+		private final String tagName;
+		private final Map<String, String> attributes;
+		private final String text;
+
+		QueriedElement(WebElement element, String tagName, Map<String, String> attributes, String text) {
+			super(element);
+			this.tagName = tagName;
+			this.attributes = attributes;
+			this.text = text;
+		}
+
+		@Override
+		public String getTagName() {
+			return tagName;
+		}
+
+		@Override
+		public String getAttribute(String name) {
+			if (attributes.containsKey(name))
+				return attributes.get(name);
+			return super.getAttribute(name);
+		}
+
+		@Override
+		public String getText() {
+			return text != null ? text : super.getText();
+		}
+	}
+}
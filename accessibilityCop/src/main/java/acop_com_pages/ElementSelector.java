@@ -0,0 +1,139 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the elements a check looks at, both as an xpath expression for the
+ * live webdriver path and as a tag based match for a PageSnapshot.
+ * 	- new ElementSelector("//img", "img").withAttributes("alt", "src")
+ * 	- new ElementSelector("//input[@type='image']", "input").withAttribute("type", "image")
+ * 	- new ElementSelector("//table//th", "th").withAncestor("table")
+ * 	- new ElementSelector("//h1 | //h2", "h1", "h2") - several tags with one query
+ *
+ */
+public class ElementSelector {
+
+	private final String xpath;
+	private final String tagName;
+	private final List<String> tagNames;
+	private String attributeName = null;
+	private String attributeValue = null;
+	private String ancestorTagName = null;
+	private boolean textRequired = false;
+	private final List<String> attributeNames = new ArrayList<String>();
+
+	/**
+	 * @param xpath
+	 *            expression for the live webdriver path, a union when several tags are selected
+	 * @param tagName
+	 *            tag of the selected elements
+	 * @param moreTagNames
+	 *            further tags selected by the xpath union
+	 */
+	public ElementSelector(String xpath, String tagName, String... moreTagNames) {
+		this.xpath = xpath;
+		this.tagName = tagName;
+		List<String> names = new ArrayList<String>();
+		names.add(tagName);
+		names.addAll(Arrays.asList(moreTagNames));
+		this.tagNames = Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Only match elements whose attribute has the given value, compared case
+	 * sensitively like the [@name='value'] predicate of the xpath
+	 */
+	public ElementSelector withAttribute(String name, String value) {
+		this.attributeName = name;
+		this.attributeValue = value;
+		if (!attributeNames.contains(name))
+			attributeNames.add(name);
+		return this;
+	}
+
+	/**
+	 * Attributes the check reads, a snapshot only captures these
+	 */
+	public ElementSelector withAttributes(String... names) {
+		for (String name : names) {
+			if (!attributeNames.contains(name))
+				attributeNames.add(name);
+		}
+		return this;
+	}
+
+	/**
+	 * Only match elements nested (at any depth) inside an element with the given tag
+	 */
+	public ElementSelector withAncestor(String ancestorTag) {
+		this.ancestorTagName = ancestorTag;
+		return this;
+	}
+
+	/**
+	 * The check reads the element text, so a snapshot has to capture it
+	 */
+	public ElementSelector withText() {
+		this.textRequired = true;
+		return this;
+	}
+
+	public String getXpath() {
+		return xpath;
+	}
+
+	/**
+	 * @return the (first) selected tag
+	 */
+	public String getTagName() {
+		return tagName;
+	}
+
+	/**
+	 * @return all selected tags
+	 */
+	public List<String> getTagNames() {
+		return tagNames;
+	}
+
+	public String getAncestorTagName() {
+		return ancestorTagName;
+	}
+
+	public boolean isTextRequired() {
+		return textRequired;
+	}
+
+	public List<String> getAttributeNames() {
+		return attributeNames;
+	}
+
+	/**
+	 * @param element
+	 *            element captured in a PageSnapshot
+	 * @return true if the element is selected by this selector
+	 */
+	public boolean matches(PageSnapshot.Element element) {
+		if (!tagName.equals(element.getTagName()) && (tagNames.size() == 1 || !tagNames.contains(element.getTagName())))
+			return false;
+		if (attributeName != null
+				&& !attributeValue.equals(element.getAttribute(attributeName)))
+			return false;
+		if (ancestorTagName != null) {
+			PageSnapshot.Element parent = element.getParent();
+			while (parent != null && !ancestorTagName.equals(parent.getTagName()))
+				parent = parent.getParent();
+			if (parent == null)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return xpath;
+	}
+}
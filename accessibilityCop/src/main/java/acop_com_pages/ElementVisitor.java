@@ -0,0 +1,24 @@
+package acop_com_pages;
+
+/**
+ * Per audit state of a StreamingAcopRule. Receives the elements matched by the
+ * rule's selectors in document order, then end() once all elements were seen.
+ *
+ */
+public interface ElementVisitor {
+
+	/**
+	 * @param element
+	 *            element matched by one of the rule's selectors
+	 * @param selector
+	 *            the selector it matched
+	 * @param index
+	 *            position of the element among the elements matched by this selector
+	 */
+	void visit(PageElement element, ElementSelector selector, int index);
+
+	/**
+	 * Called after the last element, page level findings are reported here
+	 */
+	void end();
+}
@@ -0,0 +1,31 @@
+package acop_com_pages;
+
+/**
+ * Receives the findings of runAcopChecks() while the audit runs, so a crawl can
+ * write them out instead of holding every page's error list. Every finding is
+ * handed over when a rule raises it, those of the frames after the page's own.
+ * Calls for one ACopChecksV1 instance come from the thread running
+ * runAcopChecks(); see ACopChecksV1.setKeepFindings() to stop the instance
+ * from keeping the findings as well.
+ *
+ * 	ReportWriter report = new JsonLinesReportWriter(new File("acop.jsonl"));
+ * 	checks.setFindingListener(report);
+ * 	...
+ * 	report.close();
+ *
+ */
+public interface FindingListener {
+
+	/**
+	 * @param url
+	 *            url of the page the following findings belong to
+	 */
+	void auditStarted(String url);
+
+	void findingRaised(String url, AcopFinding finding);
+
+	/**
+	 * Called after the last finding of the page, also when the audit failed
+	 */
+	void auditFinished(String url);
+}
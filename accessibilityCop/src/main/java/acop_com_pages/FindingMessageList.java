@@ -0,0 +1,50 @@
+package acop_com_pages;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * List<String> view of findings - each element is the finding message, rendered
+ * when it is read. Removing elements removes the underlying findings; added or
+ * replaced messages are stored as custom findings (AcopFinding.customError), so
+ * callers that append their own messages keep working.
+ *
+ */
+class FindingMessageList extends AbstractList<String> {
+
+	private final List<AcopFinding> findings;
+
+	FindingMessageList(List<AcopFinding> findings) {
+		this.findings = findings;
+	}
+
+	@Override
+	public String get(int index) {
+		return findings.get(index).getMessage();
+	}
+
+	@Override
+	public int size() {
+		return findings.size();
+	}
+
+	@Override
+	public void add(int index, String message) {
+		findings.add(index, AcopFinding.customError(message));
+	}
+
+	@Override
+	public String set(int index, String message) {
+		return findings.set(index, AcopFinding.customError(message)).getMessage();
+	}
+
+	@Override
+	public String remove(int index) {
+		return findings.remove(index).getMessage();
+	}
+
+	@Override
+	public void clear() {
+		findings.clear();
+	}
+}
@@ -0,0 +1,234 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Audits the documents of all frame and iframe elements below the top level
+ * document, depth first. Every frame is entered once and all rules run while the
+ * driver is switched into it; its findings are tagged with the frame path.
+ * Selenium has no switch to the parent frame, so leaving a child frame means
+ * switching to the default content and back down the path of frame elements.
+ * The child frames of a frame are listed with a single findElements call.
+ *
+ * Entering a frame and listing its child frames run on a helper thread and are
+ * bounded by a timeout. A frame that fails to be entered (detached, not a frame
+ * any more) is skipped together with its children. A call that does not return in
+ * time may still be inside the driver, so the traversal stops there: no other
+ * thread touches the driver again for frames, the frame and all frames after it
+ * are reported as not audited with a timeout warning, and the helper thread
+ * switches the driver back to the default content once the stuck call returned.
+ * No further frame is entered once the audit time budget is used up.
+ *
+ */
+class FrameTraversal {
+
+	private static Log logger = ACopChecksV1.getLog(FrameTraversal.class);
+
+	static final String FRAMES_XPATH = "//frame | //iframe";
+
+	/** rule id of the timeout warning for frames that were not audited */
+	static final String RULE_ID = "frames";
+
+	private final ACopChecksV1 checks;
+	private final long timeoutMillis;
+	private final int maxDepth;
+	private ExecutorService switcher = null;
+	/** true once a driver call timed out, the driver may still be busy with it */
+	private boolean stalled = false;
+	/** frame elements leading to the document the driver is switched to, null if not known */
+	private List<WebElement> current = new ArrayList<WebElement>();
+
+	FrameTraversal(ACopChecksV1 checks, long timeoutMillis, int maxDepth) {
+		this.checks = checks;
+		this.timeoutMillis = timeoutMillis;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Audits all frames of the top level document, the driver must be switched to
+	 * the default content and is switched back to it when done
+	 *
+	 * @param rules
+	 *            rules to run in every frame
+	 * @param findings
+	 *            list the tagged findings are added to
+	 */
+	void audit(List<AcopRule> rules, List<AcopFinding> findings) {
+		try {
+			List<WebElement> frames = listFrames("the top level document");
+			if (frames != null)
+				auditChildren(rules, findings, new ArrayList<WebElement>(), "", frames);
+			else if (stalled)
+				raise(findings, notAudited("the frames of the top level document are"));
+		} finally {
+			if (stalled) {
+				leaveWhenReturned();
+			} else {
+				if (switcher != null)
+					switcher.shutdownNow();
+				if (current == null || !current.isEmpty())
+					checks.driver.switchTo().defaultContent();
+			}
+		}
+	}
+
+	private void auditChildren(List<AcopRule> rules, List<AcopFinding> findings, List<WebElement> path,
+			String pathLabel, List<WebElement> frames) {
+		for (int i = 0; i < frames.size(); i++) {
+			if (checks.isAuditTimeUp()) {
+				logger.error("Audit time budget used up, remaining frames below " + (pathLabel.length() > 0 ? pathLabel
+						: "the top level document") + " are not audited");
+				return;
+			}
+			List<WebElement> childPath = new ArrayList<WebElement>(path);
+			childPath.add(frames.get(i));
+			String childLabel = pathLabel + (pathLabel.length() > 0 ? " / " : "") + "(" + FRAMES_XPATH + ")[" + (i + 1) + "]";
+			if (!enter(childPath, childLabel)) {
+				if (!stalled)
+					continue;
+				raise(findings, notAudited(childLabel + " and the frames after it are"));
+				return;
+			}
+
+			List<AcopFinding> frameFindings = new ArrayList<AcopFinding>();
+			checks.auditDocument(rules, frameFindings, childLabel);
+			for (AcopFinding finding : frameFindings)
+				findings.add(finding.inFrame(childLabel));
+
+			if (childPath.size() >= maxDepth) {
+				if (logger.isInfoEnabled())
+					logger.info(" Frames below " + childLabel + " are not audited, maximum frame depth " + maxDepth);
+				continue;
+			}
+			List<WebElement> children = listFrames(childLabel);
+			if (stalled) {
+				raise(findings, notAudited("the frames below " + childLabel + " and after it are"));
+				return;
+			}
+			if (children != null && !children.isEmpty())
+				auditChildren(rules, findings, childPath, childLabel, children);
+			if (stalled)
+				return;
+		}
+	}
+
+	/**
+	 * Adds a finding of the traversal itself and hands it to the finding listener of the run
+	 */
+	private void raise(List<AcopFinding> findings, AcopFinding finding) {
+		findings.add(finding);
+		checks.raised(finding);
+	}
+
+	/**
+	 * @return timeout warning for the frames that were not audited after a driver call timed out
+	 */
+	private AcopFinding notAudited(String frames) {
+		String reason = "frame driver call did not return within " + timeoutMillis + " ms, " + frames + " not audited";
+		logger.error(reason);
+		return AcopFinding.timeout(RULE_ID, false, reason);
+	}
+
+	/**
+	 * Queues the switch back to the default content behind the call that timed out, so
+	 * the driver is only used by one thread at a time
+	 */
+	private void leaveWhenReturned() {
+		switcher.submit(new Runnable() {
+			public void run() {
+				try {
+					checks.driver.switchTo().defaultContent();
+				} catch (RuntimeException ex) {
+					logger.error("Switching back to the default content failed Error is " + ex);
+				}
+			}
+		});
+		switcher.shutdown();
+		switcher = null;
+	}
+
+	/**
+	 * Switches to the frame at the end of path, from the default content unless the
+	 * driver is already in its parent
+	 *
+	 * @return false if the frame could not be entered within the timeout
+	 */
+	private boolean enter(final List<WebElement> path, String label) {
+		final boolean fromParent = current != null && current.equals(path.subList(0, path.size() - 1));
+		Boolean entered = bounded(new Callable<Boolean>() {
+			public Boolean call() {
+				WebDriver.TargetLocator target = checks.driver.switchTo();
+				if (fromParent) {
+					target.frame(path.get(path.size() - 1));
+				} else {
+					target.defaultContent();
+					for (WebElement frame : path)
+						target.frame(frame);
+				}
+				return Boolean.TRUE;
+			}
+		}, "Switching to frame " + label);
+		if (entered == null) {
+			current = null;
+			return false;
+		}
+		current = path;
+		return true;
+	}
+
+	/**
+	 * @return frame elements of the current document, null if they could not be listed within the timeout
+	 */
+	private List<WebElement> listFrames(String label) {
+		return bounded(new Callable<List<WebElement>>() {
+			public List<WebElement> call() {
+				return checks.driver.findElements(By.xpath(FRAMES_XPATH));
+			}
+		}, "Listing the frames of " + label);
+	}
+
+	/**
+	 * Runs a driver call on the switcher thread and waits at most timeoutMillis for
+	 * it. A call that timed out is left running and marks the traversal stalled.
+	 *
+	 * @return result of the call, null if it failed or timed out
+	 */
+	private <T> T bounded(Callable<T> call, String description) {
+		if (switcher == null) {
+			switcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "acop-frame-switch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		Future<T> result = switcher.submit(call);
+		try {
+			return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException ex) {
+			stalled = true;
+			logger.error(description + " did not finish within " + timeoutMillis + " ms, frame auditing stopped");
+		} catch (ExecutionException ex) {
+			logger.error(description + " failed, skipped Error is " + ex.getCause());
+		} catch (InterruptedException ex) {
+			stalled = true;
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,115 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the metrics of the most recent audits and running totals per rule. Thread
+ * safe, so one sink can be shared by all ACopChecksV1 instances of a batch run.
+ *
+ * 	InMemoryMetricsSink metrics = new InMemoryMetricsSink();
+ * 	checks.setMetricsSink(metrics);
+ * 	checks.runAcopChecks();
+ * 	for (RuleMetrics rule : metrics.getAudits().get(0).getRules())
+ * 		System.out.println(rule);
+ *
+ */
+public class InMemoryMetricsSink implements MetricsSink, AuditMetricsMXBean {
+
+	private final int maxAudits;
+	private final LinkedList<AuditMetrics> audits = new LinkedList<AuditMetrics>();
+	private final Map<String, RuleStatistics> rules = new LinkedHashMap<String, RuleStatistics>();
+	private long auditCount = 0;
+	private long cachedAuditCount = 0;
+	private long wallNanos = 0;
+	private long driverCalls = 0;
+	private long findings = 0;
+	private long timeouts = 0;
+
+	/**
+	 * Sink that keeps the last 1000 audits
+	 */
+	public InMemoryMetricsSink() {
+		this(1000);
+	}
+
+	/**
+	 * @param maxAudits
+	 *            number of recent audits kept, the totals cover all audits
+	 */
+	public InMemoryMetricsSink(int maxAudits) {
+		if (maxAudits < 0)
+			throw new IllegalArgumentException("maxAudits must not be negative - " + maxAudits);
+		this.maxAudits = maxAudits;
+	}
+
+	public synchronized void auditCompleted(AuditMetrics metrics) {
+		if (maxAudits > 0) {
+			if (audits.size() == maxAudits)
+				audits.removeFirst();
+			audits.addLast(metrics);
+		}
+		auditCount++;
+		if (metrics.isCached())
+			cachedAuditCount++;
+		wallNanos += metrics.getWallNanos();
+		driverCalls += metrics.getDriverCalls();
+		findings += metrics.getFindings();
+		for (RuleMetrics rule : metrics.getRules()) {
+			RuleStatistics totals = rules.get(rule.getRuleId());
+			if (totals == null)
+				totals = new RuleStatistics(0, 0, 0, 0, 0, 0);
+			rules.put(rule.getRuleId(), totals.add(rule));
+			timeouts += rule.getTimeouts();
+		}
+	}
+
+	/**
+	 * @return metrics of the most recent audits, oldest first
+	 */
+	public synchronized List<AuditMetrics> getAudits() {
+		return new ArrayList<AuditMetrics>(audits);
+	}
+
+	public synchronized long getAuditCount() {
+		return auditCount;
+	}
+
+	public synchronized long getCachedAuditCount() {
+		return cachedAuditCount;
+	}
+
+	public synchronized long getDriverCalls() {
+		return driverCalls;
+	}
+
+	public synchronized long getFindings() {
+		return findings;
+	}
+
+	public synchronized long getTimeouts() {
+		return timeouts;
+	}
+
+	public synchronized double getMeanAuditMillis() {
+		return auditCount == 0 ? 0 : wallNanos / 1000000.0 / auditCount;
+	}
+
+	public synchronized Map<String, RuleStatistics> getRuleStatistics() {
+		return new LinkedHashMap<String, RuleStatistics>(rules);
+	}
+
+	public synchronized void reset() {
+		audits.clear();
+		rules.clear();
+		auditCount = 0;
+		cachedAuditCount = 0;
+		wallNanos = 0;
+		driverCalls = 0;
+		findings = 0;
+		timeouts = 0;
+	}
+}
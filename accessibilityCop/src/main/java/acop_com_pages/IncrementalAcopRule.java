@@ -0,0 +1,16 @@
+package acop_com_pages;
+
+/**
+ * A streaming rule whose findings for an element depend only on that element and
+ * its captured ancestors. In incremental mode such rules are re-run only on the
+ * elements that changed since the previous audit, and their findings for
+ * unchanged elements are kept. The visitor must report all findings from
+ * visit(), none from end().
+ *
+ * Rules that compare elements with each other (duplicates, nesting, id
+ * references) must not implement this interface; they are re-run on the whole
+ * page whenever it changed.
+ *
+ */
+public interface IncrementalAcopRule extends StreamingAcopRule {
+}
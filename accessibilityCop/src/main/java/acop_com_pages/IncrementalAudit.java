@@ -0,0 +1,473 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Incremental mode of ACopChecksV1. The first audit of a document captures all
+ * elements, gives each one a key (an expando property on the DOM node) and
+ * installs a MutationObserver. Later audits only capture the subtrees added since
+ * the previous audit plus the elements whose attributes or text changed, together
+ * with their captured ancestors.
+ * 	- IncrementalAcopRule rules are re-run on the captured elements only; their
+ * 	  findings for removed and re-captured elements are replaced, all others kept
+ * 	- the other rules (title, rules comparing elements) are re-run on a new
+ * 	  snapshot of the whole page, but only if an element they select was added,
+ * 	  removed or changed, or for rules reading text anything inside one; page
+ * 	  source rules are re-run if anything changed. That snapshot walks the whole
+ * 	  document again - on a large page it takes as long as a full capture - so
+ * 	  changes that only concern the incremental rules leave it out
+ * 	- a new document, a changed rule set or a browser without MutationObserver
+ * 	  leads to a full audit
+ *
+ * Findings raised by an incremental audit carry no element index, since indexes
+ * of the unchanged elements are not known.
+ *
+ * The observer (window.__acopTracker) and the keys (__acopKey) stay on the page
+ * between audits; release() removes them when incremental mode is turned off.
+ *
+ */
+class IncrementalAudit {
+
+	private static Log logger = ACopChecksV1.getLog(IncrementalAudit.class);
+
+	/** key for findings a visitor reports from end() */
+	private static final Integer PAGE_KEY = Integer.valueOf(0);
+
+	/**
+	 * arguments[0] - tags to capture, arguments[1] - tags whose text is needed,
+	 * arguments[2] - attribute names, arguments[3] - true to capture the whole page
+	 * returns [full, removed keys, records, changed, direct], one record per element -
+	 * [tag, parentIndex, text, key, name1, value1, name2, value2 ...]; direct lists
+	 * the indexes of the records of added and changed elements, the other records
+	 * are their ancestors
+	 */
+	static final String CAPTURE_SCRIPT =
+			"var wanted = {}, withText = {}, out = [], seen = {}, i;" +
+			"for (i = 0; i < arguments[0].length; i++) wanted[arguments[0][i]] = true;" +
+			"for (i = 0; i < arguments[1].length; i++) withText[arguments[1][i]] = true;" +
+			"var textOf = " + PageSnapshot.TEXT_FUNCTION + ";" +
+			"var resolver = document.createElement('a');" +
+			"var tracker = window.__acopTracker;" +
+			"if (!tracker) {" +
+			"  tracker = window.__acopTracker = {nextKey: 1, roots: [], touched: [], removed: [], observer: null};" +
+			"  var forget = function(node) {" +
+			"    var stack = [node];" +
+			"    while (stack.length > 0) {" +
+			"      var n = stack.pop();" +
+			"      if (n.nodeType != 1) continue;" +
+			"      if (n.__acopKey) tracker.removed.push(n.__acopKey);" +
+			"      for (var c = 0; c < n.childNodes.length; c++) stack.push(n.childNodes[c]);" +
+			"    }" +
+			"  };" +
+			"  tracker.record = function(mutations) {" +
+			"    for (var m = 0; m < mutations.length; m++) {" +
+			"      var mutation = mutations[m];" +
+			"      if (mutation.type == 'childList') {" +
+			"        tracker.touched.push(mutation.target);" +
+			"        for (var a = 0; a < mutation.addedNodes.length; a++)" +
+			"          if (mutation.addedNodes[a].nodeType == 1) tracker.roots.push(mutation.addedNodes[a]);" +
+			"        for (var r = 0; r < mutation.removedNodes.length; r++) forget(mutation.removedNodes[r]);" +
+			"      } else if (mutation.type == 'attributes') {" +
+			"        tracker.touched.push(mutation.target);" +
+			"      } else if (mutation.target.parentNode) {" +
+			"        tracker.touched.push(mutation.target.parentNode);" +
+			"      }" +
+			"    }" +
+			"  };" +
+			"  if (window.MutationObserver) {" +
+			"    tracker.observer = new MutationObserver(tracker.record);" +
+			"    tracker.observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});" +
+			"  }" +
+			"} else if (tracker.observer) {" +
+			"  tracker.record(tracker.observer.takeRecords());" +
+			"}" +
+			"var full = arguments[3] || !tracker.observer || tracker.nextKey == 1;" +
+			"var args = arguments;" +
+			"var emit = function(node, parent) {" +
+			"  if (!node.__acopKey) node.__acopKey = tracker.nextKey++;" +
+			"  var tag = node.tagName.toLowerCase();" +
+			"  var record = [tag, parent, withText[tag] ? textOf(node) : null, node.__acopKey];" +
+			"  for (var a = 0; a < args[2].length; a++) {" +
+			"    var name = args[2][a], value = node.getAttribute(name);" +
+			"    if (value === null || value === undefined || (node.hasAttribute && !node.hasAttribute(name))) continue;" +
+			"    if (name == 'src' || name == 'href') { resolver.href = value; value = resolver.href; }" +
+			"    record.push(name, String(value));" +
+			"  }" +
+			"  seen[node.__acopKey] = out.length;" +
+			"  out.push(record);" +
+			"  return out.length - 1;" +
+			"};" +
+			"var indexOf = function(node, parent) {" +
+			"  var known = node.__acopKey ? seen[node.__acopKey] : undefined;" +
+			"  return known !== undefined ? known : emit(node, parent);" +
+			"};" +
+			"var ancestors = function(node) {" +
+			"  var chain = [], parent = -1;" +
+			"  for (var p = node.parentNode; p && p.nodeType == 1; p = p.parentNode)" +
+			"    if (wanted[p.tagName.toLowerCase()]) chain.push(p);" +
+			"  for (var c = chain.length - 1; c >= 0; c--) parent = indexOf(chain[c], parent);" +
+			"  return parent;" +
+			"};" +
+			"var walk = function(root, parent) {" +
+			"  var stack = [root], parents = [parent];" +
+			"  while (stack.length > 0) {" +
+			"    var node = stack.pop(), index = parents.pop(), children = [];" +
+			"    for (var n = 0; n < node.childNodes.length; n++)" +
+			"      if (node.childNodes[n].nodeType == 1) children.push(node.childNodes[n]);" +
+			"    if (wanted[node.tagName.toLowerCase()]) { index = indexOf(node, index); direct.push(index); }" +
+			"    for (var c = children.length - 1; c >= 0; c--) { stack.push(children[c]); parents.push(index); }" +
+			"  }" +
+			"};" +
+			"var connected = function(node) {" +
+			"  for (var n = node; n; n = n.parentNode) if (n == document) return true;" +
+			"  return false;" +
+			"};" +
+			"var removed = [], changed = true, direct = [];" +
+			"if (full) {" +
+			"  walk(document.documentElement, -1);" +
+			"} else {" +
+			"  removed = tracker.removed;" +
+			"  changed = tracker.roots.length + tracker.touched.length + removed.length > 0;" +
+			"  for (i = 0; i < tracker.roots.length; i++)" +
+			"    if (connected(tracker.roots[i])) walk(tracker.roots[i], ancestors(tracker.roots[i]));" +
+			"  for (i = 0; i < tracker.touched.length; i++) {" +
+			"    var node = tracker.touched[i];" +
+			"    if (node.nodeType != 1 || !connected(node)) continue;" +
+			"    var parent = ancestors(node);" +
+			"    if (wanted[node.tagName.toLowerCase()]) direct.push(indexOf(node, parent));" +
+			"  }" +
+			"}" +
+			"tracker.roots = []; tracker.touched = []; tracker.removed = [];" +
+			"return [full, removed, out, changed, direct];";
+
+	/**
+	 * Disconnects the observer of CAPTURE_SCRIPT and removes the tracker and the element keys from the page
+	 */
+	static final String RELEASE_SCRIPT =
+			"var tracker = window.__acopTracker;" +
+			"if (tracker) {" +
+			"  if (tracker.observer) tracker.observer.disconnect();" +
+			"  var all = document.getElementsByTagName('*');" +
+			"  for (var i = 0; i < all.length; i++) {" +
+			"    if (all[i].__acopKey === undefined) continue;" +
+			"    try { delete all[i].__acopKey; } catch (e) { all[i].__acopKey = undefined; }" +
+			"  }" +
+			"  try { delete window.__acopTracker; } catch (e) { window.__acopTracker = undefined; }" +
+			"}";
+
+	private final ACopChecksV1 checks;
+	private List<AcopRule> rules = null;
+	/** findings of the incremental rules, by rule and element key */
+	private final Map<AcopRule, Map<Integer, List<AcopFinding>>> elementFindings =
+			new HashMap<AcopRule, Map<Integer, List<AcopFinding>>>();
+	/** findings of the other rules, from the last audit that ran them */
+	private final Map<AcopRule, List<AcopFinding>> pageFindings = new HashMap<AcopRule, List<AcopFinding>>();
+	/** tags of the captured elements the other rules select, by element key */
+	private final Map<Integer, String> otherTagsByKey = new HashMap<Integer, String>();
+
+	IncrementalAudit(ACopChecksV1 checks) {
+		this.checks = checks;
+	}
+
+	/**
+	 * @param enabledRules
+	 *            rules to run, in order
+	 * @return findings of the page in rule order, null if the page cannot be captured
+	 */
+	List<AcopFinding> audit(List<AcopRule> enabledRules) {
+		if (!(checks.driver instanceof JavascriptExecutor))
+			return null;
+		boolean sameRules = enabledRules.equals(rules);
+		List<AcopRule> incremental = new ArrayList<AcopRule>();
+		List<AcopRule> others = new ArrayList<AcopRule>();
+		Set<String> otherTags = new HashSet<String>();
+		List<ElementSelector> selectors = new ArrayList<ElementSelector>();
+		for (AcopRule rule : enabledRules) {
+			selectors.addAll(rule.getSelectors());
+			if (rule instanceof IncrementalAcopRule) {
+				incremental.add(rule);
+			} else {
+				others.add(rule);
+				PageSnapshot.collectCaptureSets(rule.getSelectors(), otherTags, new HashSet<String>(), new HashSet<String>());
+			}
+		}
+
+		List<?> result = capture(selectors, !sameRules);
+		if (result == null)
+			return null;
+		boolean full = Boolean.TRUE.equals(result.get(0));
+		List<?> records = (List<?>) result.get(2);
+		List<Integer> keys = new ArrayList<Integer>(records.size());
+		PageSnapshot snapshot = fromRecords(records, keys);
+
+		if (full) {
+			rules = enabledRules;
+			elementFindings.clear();
+			pageFindings.clear();
+			otherTagsByKey.clear();
+			remember(snapshot, keys, otherTags);
+			for (AcopRule rule : incremental)
+				elementFindings.put(rule, new LinkedHashMap<Integer, List<AcopFinding>>());
+			dispatch(incremental, snapshot, keys, true);
+			runOthers(others, snapshot);
+		} else {
+			List<?> removed = (List<?>) result.get(1);
+			if (!Boolean.TRUE.equals(result.get(3)))
+				return merge();
+			if (logger.isInfoEnabled())
+				logger.info(" Incremental audit - " + records.size() + " changed and " + removed.size() + " removed elements ");
+			Set<Integer> stale = new HashSet<Integer>(keys);
+			for (Object key : removed)
+				stale.add(Integer.valueOf(((Number) key).intValue()));
+			stale.add(PAGE_KEY);
+			for (Map<Integer, List<AcopFinding>> byElement : elementFindings.values())
+				byElement.keySet().removeAll(stale);
+
+			Set<String> changedTags = new HashSet<String>();
+			Set<String> capturedTags = new HashSet<String>();
+			for (Object index : (List<?>) result.get(4))
+				changedTags.add(snapshot.getElements().get(((Number) index).intValue()).getTagName());
+			for (PageSnapshot.Element element : snapshot.getElements())
+				capturedTags.add(element.getTagName());
+			for (Object key : removed) {
+				String tagName = otherTagsByKey.remove(Integer.valueOf(((Number) key).intValue()));
+				if (tagName != null)
+					changedTags.add(tagName);
+			}
+			remember(snapshot, keys, otherTags);
+
+			dispatch(incremental, snapshot, keys, false);
+			rerunOthers(others, changedTags, capturedTags);
+		}
+		return merge();
+	}
+
+	/**
+	 * Removes the mutation tracking of earlier audits from the document the driver
+	 * is switched to, nothing happens if no audit ran
+	 */
+	void release() {
+		if (rules == null || !(checks.driver instanceof JavascriptExecutor))
+			return;
+		rules = null;
+		elementFindings.clear();
+		pageFindings.clear();
+		otherTagsByKey.clear();
+		try {
+			((JavascriptExecutor) checks.driver).executeScript(RELEASE_SCRIPT);
+		} catch (WebDriverException ex) {
+			logger.error("Incremental tracking could not be removed Error is " + ex.getMessage());
+		} catch (UnsupportedOperationException ex) {
+			logger.error("Incremental tracking could not be removed Error is " + ex.getMessage());
+		}
+	}
+
+	private List<?> capture(Collection<ElementSelector> selectors, boolean full) {
+		Set<String> tags = new LinkedHashSet<String>();
+		Set<String> textTags = new LinkedHashSet<String>();
+		Set<String> attributeNames = new LinkedHashSet<String>();
+		PageSnapshot.collectCaptureSets(selectors, tags, textTags, attributeNames);
+		Object result;
+		try {
+			result = ((JavascriptExecutor) checks.driver).executeScript(CAPTURE_SCRIPT,
+					new ArrayList<String>(tags), new ArrayList<String>(textTags),
+					new ArrayList<String>(attributeNames), Boolean.valueOf(full));
+		} catch (WebDriverException ex) {
+			logger.error("Incremental capture failed Error is " + ex.getMessage());
+			return null;
+		} catch (UnsupportedOperationException ex) {
+			logger.error("Incremental capture failed Error is " + ex.getMessage());
+			return null;
+		}
+		if (!(result instanceof List) || ((List<?>) result).size() != 5) {
+			logger.error("Incremental capture failed - unexpected script result " + result);
+			return null;
+		}
+		return (List<?>) result;
+	}
+
+	/**
+	 * Records the tags of the captured elements the other rules select
+	 */
+	private void remember(PageSnapshot snapshot, List<Integer> keys, Set<String> otherTags) {
+		List<PageSnapshot.Element> elements = snapshot.getElements();
+		for (int i = 0; i < elements.size(); i++) {
+			String tagName = elements.get(i).getTagName();
+			if (otherTags.contains(tagName))
+				otherTagsByKey.put(keys.get(i), tagName);
+		}
+	}
+
+	/**
+	 * Builds a snapshot from the records of CAPTURE_SCRIPT and collects the element keys
+	 */
+	private static PageSnapshot fromRecords(List<?> records, List<Integer> keys) {
+		List<PageSnapshot.Element> elements = new ArrayList<PageSnapshot.Element>(records.size());
+		for (Object item : records) {
+			List<?> record = (List<?>) item;
+			int parentIndex = ((Number) record.get(1)).intValue();
+			PageSnapshot.Element parent = parentIndex >= 0 ? elements.get(parentIndex) : null;
+			Map<String, String> attributes = new HashMap<String, String>();
+			for (int i = 4; i + 1 < record.size(); i += 2)
+				attributes.put((String) record.get(i), String.valueOf(record.get(i + 1)));
+			elements.add(new PageSnapshot.Element(elements.size(), (String) record.get(0), attributes,
+					(String) record.get(2), parent));
+			keys.add(Integer.valueOf(((Number) record.get(3)).intValue()));
+		}
+		return new PageSnapshot(elements);
+	}
+
+	/**
+	 * Runs the incremental rules over the captured elements in one pass and files
+	 * every finding under the key of the element that was visited when it was raised
+	 */
+	private void dispatch(List<AcopRule> incremental, PageSnapshot snapshot, List<Integer> keys, boolean full) {
+		Map<String, List<Dispatch>> byTag = new HashMap<String, List<Dispatch>>();
+		List<Dispatch> all = new ArrayList<Dispatch>();
+		for (AcopRule rule : incremental) {
+			List<AcopFinding> raised = new ArrayList<AcopFinding>();
+			AuditContext context = new AuditContext(checks, raised);
+			context.setSnapshot(snapshot);
+			ElementVisitor visitor = ((StreamingAcopRule) rule).createVisitor(context);
+			for (ElementSelector selector : rule.getSelectors()) {
+				Dispatch dispatch = new Dispatch(rule, visitor, selector, raised);
+				all.add(dispatch);
+				for (String tagName : selector.getTagNames()) {
+					List<Dispatch> dispatches = byTag.get(tagName);
+					if (dispatches == null) {
+						dispatches = new ArrayList<Dispatch>();
+						byTag.put(tagName, dispatches);
+					}
+					dispatches.add(dispatch);
+				}
+			}
+		}
+
+		List<PageSnapshot.Element> elements = snapshot.getElements();
+		for (int e = 0; e < elements.size(); e++) {
+			PageSnapshot.Element element = elements.get(e);
+			List<Dispatch> dispatches = byTag.get(element.getTagName());
+			if (dispatches == null)
+				continue;
+			for (int i = 0; i < dispatches.size(); i++) {
+				Dispatch dispatch = dispatches.get(i);
+				if (!dispatch.selector.matches(element))
+					continue;
+				int before = dispatch.raised.size();
+				dispatch.visitor.visit(element, dispatch.selector, full ? dispatch.matched : -1);
+				dispatch.matched++;
+				file(dispatch, before, keys.get(e));
+			}
+		}
+		Set<ElementVisitor> ended = new HashSet<ElementVisitor>();
+		for (Dispatch dispatch : all) {
+			if (ended.add(dispatch.visitor)) {
+				int before = dispatch.raised.size();
+				dispatch.visitor.end();
+				file(dispatch, before, PAGE_KEY);
+			}
+		}
+	}
+
+	private void file(Dispatch dispatch, int before, Integer key) {
+		if (dispatch.raised.size() == before)
+			return;
+		Map<Integer, List<AcopFinding>> byElement = elementFindings.get(dispatch.rule);
+		List<AcopFinding> findings = byElement.get(key);
+		if (findings == null) {
+			findings = new ArrayList<AcopFinding>();
+			byElement.put(key, findings);
+		}
+		findings.addAll(dispatch.raised.subList(before, dispatch.raised.size()));
+	}
+
+	/**
+	 * Re-runs the other rules the changes concern on a new snapshot of their
+	 * elements, the others keep their findings
+	 * 
+	 * @param changedTags
+	 *            tags of the added, changed and removed elements
+	 * @param capturedTags
+	 *            tags of the captured elements, including the ancestors of changed elements
+	 */
+	private void rerunOthers(List<AcopRule> others, Set<String> changedTags, Set<String> capturedTags) {
+		List<AcopRule> affected = new ArrayList<AcopRule>();
+		List<ElementSelector> selectors = new ArrayList<ElementSelector>();
+		for (AcopRule rule : others) {
+			if (rule.getSelectors().isEmpty()) {
+				affected.add(rule);
+				continue;
+			}
+			Set<String> tags = new HashSet<String>();
+			Set<String> textTags = new HashSet<String>();
+			PageSnapshot.collectCaptureSets(rule.getSelectors(), tags, textTags, new HashSet<String>());
+			if (!Collections.disjoint(tags, changedTags) || !Collections.disjoint(textTags, capturedTags)) {
+				affected.add(rule);
+				selectors.addAll(rule.getSelectors());
+			}
+		}
+		if (logger.isInfoEnabled())
+			logger.info(" Incremental audit - " + (others.size() - affected.size()) + " whole page rules keep their findings ");
+		runOthers(affected, selectors.isEmpty() ? null : PageSnapshot.capture(checks.driver, selectors));
+	}
+
+	private void runOthers(List<AcopRule> others, PageSnapshot snapshot) {
+		for (AcopRule rule : others) {
+			List<AcopFinding> findings = new ArrayList<AcopFinding>();
+			AuditContext context = new AuditContext(checks, findings);
+			context.setSnapshot(snapshot);
+			pageFindings.put(rule, findings);
+			OnePassEvaluator.run(Collections.singletonList(rule), context);
+		}
+	}
+
+	/**
+	 * @return kept and new findings in rule order
+	 */
+	private List<AcopFinding> merge() {
+		List<AcopFinding> merged = new ArrayList<AcopFinding>();
+		for (AcopRule rule : rules) {
+			Map<Integer, List<AcopFinding>> byElement = elementFindings.get(rule);
+			if (byElement != null) {
+				for (List<AcopFinding> findings : byElement.values())
+					merged.addAll(findings);
+			} else if (pageFindings.containsKey(rule)) {
+				merged.addAll(pageFindings.get(rule));
+			}
+		}
+		return merged;
+	}
+
+
+	/**
+	 * A selector of an incremental rule, its visitor and the findings it raised so far
+	 */
+	private static class Dispatch {
+
+		private final AcopRule rule;
+		private final ElementVisitor visitor;
+		private final ElementSelector selector;
+		private final List<AcopFinding> raised;
+		private int matched = 0;
+
+		Dispatch(AcopRule rule, ElementVisitor visitor, ElementSelector selector, List<AcopFinding> raised) {
+			this.rule = rule;
+			this.visitor = visitor;
+			this.selector = selector;
+			this.raised = raised;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package acop_com_pages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a JUnit XML report that CI servers show as test results - a testsuite
+ * per page and a failed testcase per finding; a page without findings gets a
+ * single passing testcase and a page AcopBatchRunner could not audit an erroneous
+ * one. The testsuite of a page is opened when its audit starts and closed when it
+ * finished, so audits sharing the writer write their pages one after the other.
+ * The test counts are left out of the testsuite elements, they are only known
+ * once the page is written.
+ *
+ * 	<testsuites name="accessibilityCop">
+ * 	  <testsuite name="http://...">
+ * 	    <testcase classname="http://..." name="Rule 1 (//img)[3]"><failure type="ERROR" message="..."/></testcase>
+ * 	  </testsuite>
+ * 	</testsuites>
+ *
+ */
+public class JUnitXmlReportWriter extends ReportWriter {
+
+	public JUnitXmlReportWriter(File file) throws IOException {
+		super(file);
+	}
+
+	public JUnitXmlReportWriter(WritableByteChannel channel) {
+		super(channel);
+	}
+
+	@Override
+	protected boolean framesPages() {
+		return true;
+	}
+
+	@Override
+	protected void writeHeader() throws IOException {
+		write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuites name=\"accessibilityCop\">\n");
+	}
+
+	@Override
+	protected void writePageStart(String url) throws IOException {
+		StringBuilder xml = new StringBuilder(128);
+		xml.append("  <testsuite name=\"");
+		appendXml(xml, url);
+		xml.append("\">\n");
+		write(xml);
+	}
+
+	@Override
+	protected void writeFinding(String url, AcopFinding finding) throws IOException {
+		StringBuilder xml = new StringBuilder(256);
+		startTestCase(xml, url, "Rule " + finding.getRuleId()
+				+ (finding.getLocator() != null ? " " + finding.getLocator() : "")
+				+ (finding.getFramePath() != null ? " in frame " + finding.getFramePath() : ""));
+		xml.append("><failure type=\"").append(finding.getSeverity().name()).append("\" message=\"");
+		appendXml(xml, finding.getMessage());
+		xml.append("\"/></testcase>\n");
+		write(xml);
+	}
+
+	@Override
+	protected void writePageEnd(String url, int findings, AuditResult result) throws IOException {
+		StringBuilder xml = new StringBuilder(256);
+		if (result != null && (result.getStatus() == AuditResult.Status.FAILED
+				|| result.getStatus() == AuditResult.Status.TIMED_OUT)) {
+			startTestCase(xml, url, "audit");
+			xml.append("><error type=\"").append(result.getStatus().name()).append("\" message=\"");
+			appendXml(xml, result.getError() != null ? result.getError().toString()
+					: "Audit did not finish within the url timeout");
+			xml.append("\"/></testcase>\n");
+		} else if (findings == 0) {
+			startTestCase(xml, url, "accessibility checks");
+			xml.append("/>\n");
+		}
+		xml.append("  </testsuite>\n");
+		write(xml);
+	}
+
+	@Override
+	protected void writeFooter() throws IOException {
+		write("</testsuites>\n");
+	}
+
+	private static void startTestCase(StringBuilder xml, String url, String name) {
+		xml.append("    <testcase classname=\"");
+		appendXml(xml, url);
+		xml.append("\" name=\"");
+		appendXml(xml, name);
+		xml.append('"');
+	}
+}
@@ -0,0 +1,77 @@
+package acop_com_pages;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * InMemoryMetricsSink that is visible in JMX consoles (jconsole, VisualVM) as
+ * acop_com_pages:type=AuditMetrics,name=<name>
+ *
+ * 	JmxMetricsSink metrics = new JmxMetricsSink("crawl");
+ * 	metrics.register();
+ * 	runner.setMetricsSink(metrics);
+ * 	...
+ * 	metrics.unregister();
+ *
+ */
+public class JmxMetricsSink extends InMemoryMetricsSink {
+
+	private final ObjectName objectName;
+
+	/**
+	 * @param name
+	 *            value of the name key of the object name
+	 */
+	public JmxMetricsSink(String name) {
+		this(name, 1000);
+	}
+
+	/**
+	 * @param name
+	 *            value of the name key of the object name
+	 * @param maxAudits
+	 *            number of recent audits kept
+	 */
+	public JmxMetricsSink(String name, int maxAudits) {
+		super(maxAudits);
+		try {
+			this.objectName = new ObjectName("acop_com_pages:type=AuditMetrics,name=" + ObjectName.quote(name));
+		} catch (JMException ex) {
+			throw new IllegalArgumentException("Invalid metrics name " + name, ex);
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * Registers the sink with the platform MBean server
+	 *
+	 * @throws IllegalStateException
+	 *             if a sink with the same name is already registered
+	 */
+	public void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		} catch (JMException ex) {
+			throw new IllegalStateException("Audit metrics could not be registered as " + objectName, ex);
+		}
+	}
+
+	/**
+	 * Removes the sink from the platform MBean server, nothing happens if it is not registered
+	 */
+	public void unregister() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+		} catch (JMException ex) {
+			throw new IllegalStateException("Audit metrics could not be unregistered as " + objectName, ex);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package acop_com_pages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes one JSON object per line and finding:
+ *
+ * 	{"url":"http://...","ruleId":"1","severity":"ERROR","message":"...","locator":"(//img)[3]",...}
+ *
+ * Fields the finding does not have are left out. A page that could not be
+ * audited by AcopBatchRunner gets a line with its status instead:
+ *
+ * 	{"url":"http://...","status":"TIMED_OUT"}
+ *
+ */
+public class JsonLinesReportWriter extends ReportWriter {
+
+	public JsonLinesReportWriter(File file) throws IOException {
+		super(file);
+	}
+
+	public JsonLinesReportWriter(WritableByteChannel channel) {
+		super(channel);
+	}
+
+	@Override
+	protected void writeHeader() {
+	}
+
+	@Override
+	protected void writePageStart(String url) {
+	}
+
+	@Override
+	protected void writeFinding(String url, AcopFinding finding) throws IOException {
+		StringBuilder line = new StringBuilder(256);
+		line.append("{\"url\":");
+		appendJson(line, url);
+		line.append(",\"ruleId\":");
+		appendJson(line, finding.getRuleId());
+		line.append(",\"severity\":\"").append(finding.getSeverity().name()).append('"');
+		line.append(",\"message\":");
+		appendJson(line, finding.getMessage());
+		appendField(line, "locator", finding.getLocator());
+		appendField(line, "attribute", finding.getAttribute());
+		appendField(line, "detail", finding.getDetail());
+		if (finding.getSourceOffset() >= 0)
+			line.append(",\"sourceOffset\":").append(finding.getSourceOffset());
+		appendField(line, "framePath", finding.getFramePath());
+		line.append("}\n");
+		write(line);
+	}
+
+	@Override
+	protected void writePageEnd(String url, int findings, AuditResult result) throws IOException {
+		if (result == null || result.getStatus() == AuditResult.Status.COMPLETED
+				|| result.getStatus() == AuditResult.Status.PARTIAL)
+			return;
+		StringBuilder line = new StringBuilder(128);
+		line.append("{\"url\":");
+		appendJson(line, url);
+		line.append(",\"status\":\"").append(result.getStatus().name()).append('"');
+		if (result.getError() != null)
+			appendField(line, "error", result.getError().toString());
+		line.append("}\n");
+		write(line);
+	}
+
+	@Override
+	protected void writeFooter() {
+	}
+
+	private static void appendField(StringBuilder line, String name, String value) {
+		if (value == null)
+			return;
+		line.append(",\"").append(name).append("\":");
+		appendJson(line, value);
+	}
+}
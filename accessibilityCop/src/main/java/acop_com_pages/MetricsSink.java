@@ -0,0 +1,15 @@
+package acop_com_pages;
+
+/**
+ * Receives the metrics of every document audited by runAcopChecks() - the page
+ * and, with frame auditing, each frame - with a breakdown per rule. Calls come
+ * from the auditing thread; a sink shared between ACopChecksV1 instances (e.g.
+ * by AcopBatchRunner) has to be thread safe.
+ *
+ * 	checks.setMetricsSink(new InMemoryMetricsSink());
+ *
+ */
+public interface MetricsSink {
+
+	void auditCompleted(AuditMetrics metrics);
+}
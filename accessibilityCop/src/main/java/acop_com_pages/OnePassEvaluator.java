@@ -0,0 +1,365 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Runs the rules of an audit. With a snapshot, the elements are walked once and
+ * every element is handed to the visitors of the streaming rules whose selectors
+ * match its tag; other rules (page source rules, rules without visitor) run their
+ * check() as before. With an executor, page source rules run on it alongside the
+ * others. Findings are reported in rule order either way.
+ *
+ */
+final class OnePassEvaluator {
+
+	private static Log logger = ACopChecksV1.getLog(OnePassEvaluator.class);
+
+	private OnePassEvaluator() {
+	}
+
+	/**
+	 * @param rules
+	 *            enabled rules in the order they run
+	 * @param run
+	 *            context of the audit
+	 */
+	static void run(List<AcopRule> rules, AuditContext run) {
+		run(rules, run, null, 0, null);
+	}
+
+	/**
+	 * A rule that runs out of its budget, or is running when the audit budget of the
+	 * context runs out, is stopped at its next deadline check: the findings it
+	 * reported so far are kept and a timeout finding is added. Once the audit budget
+	 * is used up the remaining rules are not run and get a timeout finding as well.
+	 *
+	 * @param rules
+	 *            enabled rules in the order they run
+	 * @param run
+	 *            context of the audit
+	 * @param meters
+	 *            meter of every rule, null if the audit is not metered
+	 * @param ruleBudgetMillis
+	 *            time each rule may take, 0 for no limit
+	 * @param executor
+	 *            runs the page source rules while the other rules use the driver, null to run every rule in turn
+	 * @return true if every rule ran to the end
+	 */
+	static boolean run(List<AcopRule> rules, AuditContext run, Map<AcopRule, RuleMeter> meters, long ruleBudgetMillis,
+			Executor executor) {
+		Map<AcopRule, SourceRun> concurrent = startSourceRules(rules, run, meters, ruleBudgetMillis, executor);
+		PageSnapshot snapshot = run.getSnapshot();
+		boolean complete = true;
+		if (snapshot == null) {
+			for (AcopRule rule : rules) {
+				if (concurrent.containsKey(rule))
+					complete &= concurrent.get(rule).finish(run);
+				else
+					complete &= check(rule, run, meters, ruleBudgetMillis);
+			}
+			return complete;
+		}
+
+		Map<AcopRule, List<AcopFinding>> buffered = new HashMap<AcopRule, List<AcopFinding>>();
+		Map<AcopRule, BudgetedVisitor> budgeted = new HashMap<AcopRule, BudgetedVisitor>();
+		List<ElementVisitor> visitors = new ArrayList<ElementVisitor>();
+		Map<String, List<Dispatch>> byTag = new HashMap<String, List<Dispatch>>();
+		for (AcopRule rule : rules) {
+			if (!(rule instanceof StreamingAcopRule))
+				continue;
+			List<AcopFinding> findings = new ArrayList<AcopFinding>();
+			RuleMeter meter = meters == null ? null : meters.get(rule);
+			AuditContext ruleRun = run.withFindings(findings);
+			ElementVisitor visitor;
+			if (meter == null) {
+				visitor = ((StreamingAcopRule) rule).createVisitor(ruleRun);
+			} else {
+				ruleRun.setMeter(meter);
+				meter.start();
+				try {
+					visitor = new RuleMeter.MeteredVisitor(((StreamingAcopRule) rule).createVisitor(ruleRun), meter);
+				} finally {
+					meter.stop();
+				}
+			}
+			if (ruleBudgetMillis > 0 || run.hasAuditBudget()) {
+				TimeBudget budget = ruleBudgetMillis > 0 ? new TimeBudget(ruleBudgetMillis) : null;
+				ruleRun.setRuleBudget(budget);
+				BudgetedVisitor limited = new BudgetedVisitor(visitor, ruleRun, budget);
+				budgeted.put(rule, limited);
+				visitor = limited;
+			}
+			buffered.put(rule, findings);
+			visitors.add(visitor);
+			for (ElementSelector selector : rule.getSelectors()) {
+				// one dispatch for all tags of the selector, so the match index runs across them
+				Dispatch dispatch = new Dispatch(visitor, selector);
+				for (String tagName : selector.getTagNames()) {
+					List<Dispatch> dispatches = byTag.get(tagName);
+					if (dispatches == null) {
+						dispatches = new ArrayList<Dispatch>();
+						byTag.put(tagName, dispatches);
+					}
+					dispatches.add(dispatch);
+				}
+			}
+		}
+
+		for (PageSnapshot.Element element : snapshot.getElements()) {
+			List<Dispatch> dispatches = byTag.get(element.getTagName());
+			if (dispatches == null)
+				continue;
+			for (int i = 0; i < dispatches.size(); i++) {
+				Dispatch dispatch = dispatches.get(i);
+				if (dispatch.selector.matches(element))
+					dispatch.visitor.visit(element, dispatch.selector, dispatch.matched++);
+			}
+		}
+		for (ElementVisitor visitor : visitors)
+			visitor.end();
+
+		for (AcopRule rule : rules) {
+			List<AcopFinding> findings = buffered.get(rule);
+			if (concurrent.containsKey(rule)) {
+				complete &= concurrent.get(rule).finish(run);
+				continue;
+			}
+			if (findings == null) {
+				complete &= check(rule, run, meters, ruleBudgetMillis);
+				continue;
+			}
+			for (AcopFinding finding : findings)
+				run.report(finding);
+			RuleMeter meter = meters == null ? null : meters.get(rule);
+			BudgetedVisitor limited = budgeted.get(rule);
+			if (limited != null && limited.stoppedBy != null) {
+				timedOut(rule, run, meter, limited.stoppedBy, limited.started);
+				complete = false;
+			}
+			if (meter != null)
+				meter.found(findings.size() + (limited != null && limited.stoppedBy != null ? 1 : 0));
+		}
+		return complete;
+	}
+
+	/**
+	 * Fetches the page source on the calling thread and starts every page source rule on the executor
+	 *
+	 * @return the started rules, empty if there is no executor
+	 */
+	private static Map<AcopRule, SourceRun> startSourceRules(List<AcopRule> rules, AuditContext run,
+			Map<AcopRule, RuleMeter> meters, long ruleBudgetMillis, Executor executor) {
+		Map<AcopRule, SourceRun> started = new HashMap<AcopRule, SourceRun>();
+		if (executor == null)
+			return started;
+		for (AcopRule rule : rules) {
+			if (!(rule instanceof PageSourceRule))
+				continue;
+			// the driver is only used by the calling thread, so the source is read before the first rule starts
+			run.getSourceScan();
+			RuleMeter meter = meters == null ? null : meters.get(rule);
+			if (meter != null)
+				meter.ignoreDriverCalls();
+			final SourceRun sourceRun = new SourceRun(rule, run.withFindings(new ArrayList<AcopFinding>()), meters,
+					ruleBudgetMillis);
+			try {
+				executor.execute(new Runnable() {
+					public void run() {
+						sourceRun.check();
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				logger.error("Rule " + rule.getId() + " runs on the audit thread, the executor rejected it Error is " + ex);
+			}
+			started.put(rule, sourceRun);
+		}
+		return started;
+	}
+
+	/**
+	 * Runs the check() of a rule, metered if the audit is, within the rule and audit budgets
+	 *
+	 * @return false if the rule was stopped or not run because a budget was used up
+	 */
+	private static boolean check(AcopRule rule, AuditContext run, Map<AcopRule, RuleMeter> meters,
+			long ruleBudgetMillis) {
+		RuleMeter meter = meters == null ? null : meters.get(rule);
+		int before = run.getFindings().size();
+		boolean started = false;
+		boolean complete = true;
+		if (meter != null) {
+			run.setMeter(meter);
+			meter.start();
+		}
+		try {
+			run.checkDeadline();
+			started = true;
+			if (ruleBudgetMillis > 0) {
+				TimeBudget budget = new TimeBudget(ruleBudgetMillis);
+				budget.start();
+				run.setRuleBudget(budget);
+			}
+			rule.check(run);
+		} catch (AuditTimeoutException ex) {
+			timedOut(rule, run, meter, ex, started);
+			complete = false;
+		} finally {
+			run.setRuleBudget(null);
+			if (meter != null) {
+				meter.stop();
+				run.setMeter(null);
+				meter.found(run.getFindings().size() - before);
+			}
+		}
+		return complete;
+	}
+
+	private static void timedOut(AcopRule rule, AuditContext run, RuleMeter meter, AuditTimeoutException ex,
+			boolean started) {
+		logger.error("Rule " + rule.getId() + (started ? " stopped - " : " not run - ") + ex.getMessage());
+		if (meter != null)
+			meter.timedOut();
+		run.report(AcopFinding.timeout(rule.getId(), started, ex.getMessage()));
+	}
+
+
+	/**
+	 * A page source rule started on the executor, with the findings it reports. The
+	 * rule runs on whichever thread gets to it first - the executor, or the audit
+	 * thread once it needs the findings - so an executor that is busy with the audit
+	 * itself cannot leave the audit waiting.
+	 */
+	private static class SourceRun {
+
+		private final AcopRule rule;
+		private final AuditContext ruleRun;
+		private final Map<AcopRule, RuleMeter> meters;
+		private final long ruleBudgetMillis;
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+
+		SourceRun(AcopRule rule, AuditContext ruleRun, Map<AcopRule, RuleMeter> meters, long ruleBudgetMillis) {
+			this.rule = rule;
+			this.ruleRun = ruleRun;
+			this.meters = meters;
+			this.ruleBudgetMillis = ruleBudgetMillis;
+		}
+
+		void check() {
+			if (!claimed.compareAndSet(false, true))
+				return;
+			try {
+				result.complete(Boolean.valueOf(OnePassEvaluator.check(rule, ruleRun, meters, ruleBudgetMillis)));
+			} catch (RuntimeException ex) {
+				result.completeExceptionally(ex);
+			} catch (Error ex) {
+				result.completeExceptionally(ex);
+			}
+		}
+
+		/**
+		 * Waits for the rule, or runs it if no thread has started it yet, and reports its findings to the run
+		 *
+		 * @return false if the rule was stopped or not run because a budget was used up
+		 */
+		boolean finish(AuditContext run) {
+			check();
+			boolean complete;
+			try {
+				complete = result.join().booleanValue();
+			} catch (CompletionException ex) {
+				// the rule failed, as it would have on the calling thread
+				if (ex.getCause() instanceof RuntimeException)
+					throw (RuntimeException) ex.getCause();
+				if (ex.getCause() instanceof Error)
+					throw (Error) ex.getCause();
+				throw ex;
+			}
+			for (AcopFinding finding : ruleRun.getFindings())
+				run.report(finding);
+			return complete;
+		}
+	}
+
+
+	/**
+	 * Visitor of a streaming rule in a shared pass that stops handing elements to the
+	 * rule once its budget or the audit budget is used up. The rule budget only runs
+	 * while the rule's visitor does.
+	 */
+	private static class BudgetedVisitor implements ElementVisitor {
+
+		private final ElementVisitor visitor;
+		private final AuditContext context;
+		private final TimeBudget budget;
+		private AuditTimeoutException stoppedBy = null;
+		/** false until the visitor got its first element, a rule stopped before that did not run */
+		private boolean started = false;
+
+		BudgetedVisitor(ElementVisitor visitor, AuditContext context, TimeBudget budget) {
+			this.visitor = visitor;
+			this.context = context;
+			this.budget = budget;
+		}
+
+		public void visit(PageElement element, ElementSelector selector, int index) {
+			if (stoppedBy != null)
+				return;
+			if (budget != null)
+				budget.start();
+			try {
+				context.checkDeadline();
+				started = true;
+				visitor.visit(element, selector, index);
+			} catch (AuditTimeoutException ex) {
+				stoppedBy = ex;
+			} finally {
+				if (budget != null)
+					budget.stop();
+			}
+		}
+
+		public void end() {
+			if (stoppedBy != null)
+				return;
+			if (budget != null)
+				budget.start();
+			try {
+				context.checkDeadline();
+				started = true;
+				visitor.end();
+			} catch (AuditTimeoutException ex) {
+				stoppedBy = ex;
+			} finally {
+				if (budget != null)
+					budget.stop();
+			}
+		}
+	}
+
+
+	/**
+	 * A selector of a streaming rule and the number of elements it matched so far
+	 */
+	private static class Dispatch {
+
+		private final ElementVisitor visitor;
+		private final ElementSelector selector;
+		private int matched = 0;
+
+		Dispatch(ElementVisitor visitor, ElementSelector selector) {
+			this.visitor = visitor;
+			this.selector = selector;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package acop_com_pages;
+
+/**
+ * Read only view of a page element as used by the accessibility checks.
+ * 	- WebPageElement reads every value from the live page through webdriver
+ * 	- PageSnapshot.Element reads values captured earlier in a single round-trip
+ *
+ */
+public interface PageElement {
+
+	/**
+	 * @return lower case tag name of the element
+	 */
+	String getTagName();
+
+	/**
+	 * @param name
+	 *            attribute name
+	 * @return attribute value, null if the attribute is not present
+	 */
+	String getAttribute(String name);
+
+	/**
+	 * @return text of the element
+	 */
+	String getText();
+}
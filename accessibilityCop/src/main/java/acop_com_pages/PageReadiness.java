@@ -0,0 +1,109 @@
+package acop_com_pages;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Waits for a page to settle before elements are counted.
+ * 	- document.readyState has to be 'complete'
+ * 	- where the browser supports MutationObserver, the DOM also has to be free of
+ * 	  mutations for a quiet period
+ * Returns as soon as both hold, so a stable page costs a single round-trip.
+ * The observer stays on the page so later waits in the same audit do not start
+ * their quiet period over; release() removes it once the audit is done.
+ *
+ */
+public class PageReadiness {
+
+	private static Log logger = ACopChecksV1.getLog(PageReadiness.class);
+
+	private static final long POLL_INTERVAL = 50;
+
+	/**
+	 * Installs a MutationObserver once per document (window.__acopReadiness) and reports
+	 * [readyState, milliseconds since the last mutation or -1 if mutations cannot be observed]
+	 */
+	static final String READY_SCRIPT =
+			"var now = new Date().getTime(), r = window.__acopReadiness;" +
+			"if (!r && window.MutationObserver) {" +
+			"  r = window.__acopReadiness = {lastMutation: now, observer: null};" +
+			"  r.observer = new MutationObserver(function() { r.lastMutation = new Date().getTime(); });" +
+			"  r.observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});" +
+			"}" +
+			"return [document.readyState, r ? now - r.lastMutation : -1];";
+
+	/**
+	 * Disconnects the observer of READY_SCRIPT and removes it from the page
+	 */
+	static final String RELEASE_SCRIPT =
+			"var r = window.__acopReadiness;" +
+			"if (r) {" +
+			"  r.observer.disconnect();" +
+			"  try { delete window.__acopReadiness; } catch (e) { window.__acopReadiness = undefined; }" +
+			"}";
+
+	/**
+	 * @param driver
+	 *            webdriver instance used in the test
+	 * @param quietMillis
+	 *            time without DOM mutations after which the page counts as stable
+	 * @param maxWaitMillis
+	 *            upper bound for the wait
+	 * @return true if the page became ready, false if the wait ran into maxWaitMillis
+	 */
+	public static boolean waitForPageReady(WebDriver driver, long quietMillis, long maxWaitMillis) {
+		if (!(driver instanceof JavascriptExecutor))
+			return true;
+		long deadline = System.currentTimeMillis() + maxWaitMillis;
+		while (true) {
+			long wait;
+			try {
+				List<?> state = (List<?>) ((JavascriptExecutor) driver).executeScript(READY_SCRIPT);
+				long sinceMutation = ((Number) state.get(1)).longValue();
+				if ("complete".equals(state.get(0)) && (sinceMutation < 0 || sinceMutation >= quietMillis))
+					return true;
+				wait = sinceMutation < 0 ? POLL_INTERVAL : Math.max(quietMillis - sinceMutation, 1);
+			} catch (WebDriverException ex) {
+				logger.error("Page readiness could not be checked Error is " + ex.getMessage());
+				return true;
+			} catch (UnsupportedOperationException ex) {
+				logger.error("Page readiness could not be checked Error is " + ex.getMessage());
+				return true;
+			}
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				logger.info(" Page did not settle within " + maxWaitMillis + " ms ");
+				return false;
+			}
+			try {
+				Thread.sleep(Math.min(Math.min(wait, POLL_INTERVAL), remaining));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Disconnects the MutationObserver installed by waitForPageReady and removes it
+	 * from the document the driver is switched to
+	 *
+	 * @param driver
+	 *            webdriver instance used in the test
+	 */
+	public static void release(WebDriver driver) {
+		if (!(driver instanceof JavascriptExecutor))
+			return;
+		try {
+			((JavascriptExecutor) driver).executeScript(RELEASE_SCRIPT);
+		} catch (WebDriverException ex) {
+			logger.error("Page readiness observer could not be removed Error is " + ex.getMessage());
+		} catch (UnsupportedOperationException ex) {
+			logger.error("Page readiness observer could not be removed Error is " + ex.getMessage());
+		}
+	}
+}
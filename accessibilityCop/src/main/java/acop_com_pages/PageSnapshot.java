@@ -0,0 +1,267 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * In memory model of the elements the accessibility checks need, captured with a
+ * single executeScript call. The checks then run locally against the snapshot
+ * instead of making findElements / getAttribute / getText round-trips per element.
+ *
+ * Elements are kept in document order. Every captured element carries its tag,
+ * the attributes the checks read, its text (only for tags that need it) and a link
+ * to the nearest captured ancestor. Like WebElement.getAttribute, src and href come
+ * back as resolved urls.
+ *
+ */
+public class PageSnapshot {
+
+	private static Log logger = ACopChecksV1.getLog(PageSnapshot.class);
+
+	/**
+	 * Element text following the rules of WebElement.getText - only displayed text,
+	 * no script content, a line break after block level elements and br, whitespace
+	 * collapsed within a line and non breaking spaces read as spaces. innerText is
+	 * not used as browsers differ on it (HtmlUnit returns hidden text as well).
+	 */
+	static final String TEXT_FUNCTION =
+			"function(el) {" +
+			"  var blocks = {p: 1, h1: 1, h2: 1, h3: 1, h4: 1, h5: 1, h6: 1, dl: 1, div: 1, noscript: 1, blockquote: 1," +
+			"      form: 1, hr: 1, table: 1, fieldset: 1, address: 1, ul: 1, ol: 1, pre: 1, br: 1};" +
+			"  var collapse = function(t) { return t.replace(/[ \\t\\n\\r\\f\\v\\u2028\\u2029]+/g, ' '); };" +
+			"  var trim = function(t) { return t.replace(/^[ \\t\\n\\r\\f\\v]+|[ \\t\\n\\r\\f\\v]+$/g, ''); };" +
+			"  var styleOf = function(n) { return window.getComputedStyle ? window.getComputedStyle(n, null) : n.currentStyle; };" +
+			"  var raw = function(n) { return (typeof n.textContent == 'string' ? n.textContent : n.innerText) || ''; };" +
+			"  if (el.tagName.toLowerCase() == 'title') return trim(collapse(raw(el))).replace(/\\u00a0/g, ' ');" +
+			"  var displayed = true, style;" +
+			"  for (var p = el; p && p.nodeType == 1 && displayed; p = p.parentNode) {" +
+			"    style = styleOf(p);" +
+			"    displayed = !style || style.display != 'none';" +
+			"  }" +
+			"  var done = '', pending = '';" +
+			"  var walk = function(node, displayed, visible) {" +
+			"    var tag = node.tagName.toLowerCase();" +
+			"    if (tag == 'script') return;" +
+			"    for (var c = node.firstChild; c; c = c.nextSibling) {" +
+			"      if (c.nodeType == 3) {" +
+			"        if (displayed && visible) pending += c.data;" +
+			"      } else if (c.nodeType == 1) {" +
+			"        var s = styleOf(c);" +
+			"        var d = displayed && !(s && s.display == 'none'), v = !(s && s.visibility == 'hidden');" +
+			"        if (c.tagName.toLowerCase() == 'pre') {" +
+			"          if (d && v) { done += collapse(pending) + raw(c); pending = ''; }" +
+			"          done += '\\n';" +
+			"        } else {" +
+			"          walk(c, d, v);" +
+			"        }" +
+			"      }" +
+			"    }" +
+			"    if (blocks[tag]) { done += trim(collapse(pending)) + '\\n'; pending = ''; }" +
+			"  };" +
+			"  style = styleOf(el);" +
+			"  walk(el, displayed, !(style && style.visibility == 'hidden'));" +
+			"  return trim(done + collapse(pending)).replace(/\\u00a0/g, ' ');" +
+			"}";
+
+	/**
+	 * arguments[0] - tags to capture, arguments[1] - tags whose text is needed, arguments[2] - attribute names
+	 * returns one array per element - [tag, parentIndex, text, name1, value1, name2, value2 ...]
+	 */
+	static final String CAPTURE_SCRIPT =
+			"var wanted = {}, withText = {}, out = [], i;" +
+			"for (i = 0; i < arguments[0].length; i++) wanted[arguments[0][i]] = true;" +
+			"for (i = 0; i < arguments[1].length; i++) withText[arguments[1][i]] = true;" +
+			"var textOf = " + TEXT_FUNCTION + ";" +
+			"var resolver = document.createElement('a');" +
+			"var stack = [document.documentElement], parents = [-1];" +
+			"while (stack.length > 0) {" +
+			"  var node = stack.pop(), parent = parents.pop(), children = [];" +
+			"  for (var n = 0; n < node.childNodes.length; n++) {" +
+			"    if (node.childNodes[n].nodeType == 1) children.push(node.childNodes[n]);" +
+			"  }" +
+			"  for (i = children.length - 1; i >= 0; i--) { stack.push(children[i]); parents.push(parent); }" +
+			"  var tag = node.tagName.toLowerCase();" +
+			"  if (!wanted[tag]) continue;" +
+			"  var record = [tag, parent, withText[tag] ? textOf(node) : null];" +
+			"  for (var a = 0; a < arguments[2].length; a++) {" +
+			"    var name = arguments[2][a], value = node.getAttribute(name);" +
+			"    if (value === null || value === undefined || (node.hasAttribute && !node.hasAttribute(name))) continue;" +
+			"    if (name == 'src' || name == 'href') { resolver.href = value; value = resolver.href; }" +
+			"    record.push(name, String(value));" +
+			"  }" +
+			"  for (i = 0; i < children.length; i++) parents[parents.length - 1 - i] = out.length;" +
+			"  out.push(record);" +
+			"}" +
+			"return out;";
+
+	private final List<Element> elements;
+
+	PageSnapshot(List<Element> elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * Captures every element needed by the given selectors in one webdriver round-trip
+	 *
+	 * @param driver
+	 *            webdriver instance used in the test
+	 * @param selectors
+	 *            selectors of the checks that will run against the snapshot
+	 * @return snapshot of the current page, null if the driver cannot execute javascript
+	 */
+	public static PageSnapshot capture(WebDriver driver, Collection<ElementSelector> selectors) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			logger.info(" Page snapshot not available - webdriver does not support javascript ");
+			return null;
+		}
+		Set<String> tags = new LinkedHashSet<String>();
+		Set<String> textTags = new LinkedHashSet<String>();
+		Set<String> attributeNames = new LinkedHashSet<String>();
+		collectCaptureSets(selectors, tags, textTags, attributeNames);
+		Object result;
+		try {
+			result = ((JavascriptExecutor) driver).executeScript(CAPTURE_SCRIPT,
+					new ArrayList<String>(tags), new ArrayList<String>(textTags),
+					new ArrayList<String>(attributeNames));
+		} catch (WebDriverException ex) {
+			logger.error("Page snapshot could not be captured Error is " + ex.getMessage());
+			return null;
+		} catch (UnsupportedOperationException ex) {
+			logger.error("Page snapshot could not be captured Error is " + ex.getMessage());
+			return null;
+		}
+		if (!(result instanceof List)) {
+			logger.error("Page snapshot could not be captured - unexpected script result " + result);
+			return null;
+		}
+		return fromRecords((List<?>) result);
+	}
+
+	/**
+	 * Collects what a snapshot for the given selectors has to capture - the tags of
+	 * the selected elements and their ancestors, the tags whose text is read and
+	 * the attribute names read
+	 */
+	static void collectCaptureSets(Collection<ElementSelector> selectors, Set<String> tags, Set<String> textTags,
+			Set<String> attributeNames) {
+		for (ElementSelector selector : selectors) {
+			tags.addAll(selector.getTagNames());
+			if (selector.getAncestorTagName() != null)
+				tags.add(selector.getAncestorTagName());
+			if (selector.isTextRequired())
+				textTags.addAll(selector.getTagNames());
+			attributeNames.addAll(selector.getAttributeNames());
+		}
+	}
+
+	/**
+	 * Builds the snapshot from the records returned by CAPTURE_SCRIPT
+	 */
+	static PageSnapshot fromRecords(List<?> records) {
+		List<Element> elements = new ArrayList<Element>(records.size());
+		for (Object item : records) {
+			List<?> record = (List<?>) item;
+			int parentIndex = ((Number) record.get(1)).intValue();
+			Element parent = parentIndex >= 0 ? elements.get(parentIndex) : null;
+			Map<String, String> attributes = new HashMap<String, String>();
+			for (int i = 3; i + 1 < record.size(); i += 2)
+				attributes.put((String) record.get(i), String.valueOf(record.get(i + 1)));
+			elements.add(new Element(elements.size(), (String) record.get(0), attributes,
+					(String) record.get(2), parent));
+		}
+		return new PageSnapshot(elements);
+	}
+
+	/**
+	 * @param selector
+	 * @return matching elements in document order, empty list if none
+	 */
+	public List<PageElement> findElements(ElementSelector selector) {
+		List<PageElement> found = new ArrayList<PageElement>();
+		for (Element element : elements) {
+			if (selector.matches(element))
+				found.add(element);
+		}
+		return found;
+	}
+
+	/**
+	 * @return all captured elements in document order
+	 */
+	public List<Element> getElements() {
+		return Collections.unmodifiableList(elements);
+	}
+
+	public int size() {
+		return elements.size();
+	}
+
+
+	/**
+	 * A single captured element
+	 */
+	public static class Element implements PageElement {
+
+		private final int index;
+		private final String tagName;
+		private final Map<String, String> attributes;
+		private String text;
+		private final Element parent;
+
+		public Element(int index, String tagName, Map<String, String> attributes, String text,
+				Element parent) {
+			this.index = index;
+			this.tagName = tagName;
+			this.attributes = attributes;
+			this.text = text;
+			this.parent = parent;
+		}
+
+		/**
+		 * @return position of the element in document order
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public String getTagName() {
+			return tagName;
+		}
+
+		public String getAttribute(String name) {
+			return attributes.get(name);
+		}
+
+		/**
+		 * @return element text, empty if the text was not captured for this tag
+		 */
+		public String getText() {
+			return text == null ? "" : text;
+		}
+
+		/**
+		 * Sets the text once a streaming parser has reached the end of the element
+		 */
+		void setText(String text) {
+			this.text = text;
+		}
+
+		/**
+		 * @return nearest captured ancestor, null for top level elements
+		 */
+		public Element getParent() {
+			return parent;
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package acop_com_pages;
+
+/**
+ * A rule that only reads the page source scan of the context (AuditContext.getSourceScan())
+ * and makes no webdriver calls of its own. When an audit runs with an executor the
+ * page source is fetched first and such rules are evaluated on the executor while
+ * the element rules use the driver; their findings are still reported in rule order.
+ *
+ */
+public interface PageSourceRule extends AcopRule {
+}
@@ -0,0 +1,169 @@
+package acop_com_pages;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Finds a fixed set of patterns in page source with one linear pass (Aho-Corasick).
+ * The automaton is built once and can be shared between threads; each scan
+ * records the start offset of every match, overlapping matches included.
+ * Patterns are matched case sensitively and must be plain ASCII.
+ *
+ */
+public class PageSourceScanner {
+
+	private static final int ALPHABET = 128;
+
+	private final String[] patterns;
+	/** goto function with failure links folded in - nextState[state][char] */
+	private final int[][] nextState;
+	/** pattern indexes that end in each state, following output links */
+	private final int[][] outputs;
+
+	public PageSourceScanner(String... patterns) {
+		this.patterns = patterns.clone();
+		List<int[]> transitions = new ArrayList<int[]>();
+		List<List<Integer>> ends = new ArrayList<List<Integer>>();
+		transitions.add(newState());
+		ends.add(new ArrayList<Integer>());
+		for (int p = 0; p < patterns.length; p++) {
+			int state = 0;
+			for (int i = 0; i < patterns[p].length(); i++) {
+				char c = patterns[p].charAt(i);
+				if (c >= ALPHABET)
+					throw new IllegalArgumentException("Only ASCII patterns are supported - " + patterns[p]);
+				if (transitions.get(state)[c] < 0) {
+					transitions.get(state)[c] = transitions.size();
+					transitions.add(newState());
+					ends.add(new ArrayList<Integer>());
+				}
+				state = transitions.get(state)[c];
+			}
+			ends.get(state).add(p);
+		}
+
+		// breadth first pass to compute failure links and turn the trie into a full automaton
+		int[] failure = new int[transitions.size()];
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		int[] root = transitions.get(0);
+		for (int c = 0; c < ALPHABET; c++) {
+			if (root[c] < 0) {
+				root[c] = 0;
+			} else {
+				failure[root[c]] = 0;
+				queue.add(root[c]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.removeFirst();
+			ends.get(state).addAll(ends.get(failure[state]));
+			int[] row = transitions.get(state);
+			for (int c = 0; c < ALPHABET; c++) {
+				if (row[c] < 0) {
+					row[c] = transitions.get(failure[state])[c];
+				} else {
+					failure[row[c]] = transitions.get(failure[state])[c];
+					queue.add(row[c]);
+				}
+			}
+		}
+
+		nextState = transitions.toArray(new int[transitions.size()][]);
+		outputs = new int[ends.size()][];
+		for (int s = 0; s < ends.size(); s++) {
+			outputs[s] = new int[ends.get(s).size()];
+			for (int i = 0; i < outputs[s].length; i++)
+				outputs[s][i] = ends.get(s).get(i);
+		}
+	}
+
+	private static int[] newState() {
+		int[] row = new int[ALPHABET];
+		Arrays.fill(row, -1);
+		return row;
+	}
+
+	/**
+	 * @param source
+	 *            page source
+	 * @return offsets of every pattern found in the source
+	 */
+	public Result scan(CharSequence source) {
+		Result result = new Result(patterns);
+		int state = 0;
+		int length = source.length();
+		for (int i = 0; i < length; i++) {
+			char c = source.charAt(i);
+			state = c < ALPHABET ? nextState[state][c] : 0;
+			for (int p : outputs[state])
+				result.add(p, i + 1 - patterns[p].length());
+		}
+		return result;
+	}
+
+
+	/**
+	 * Matches found by a single scan
+	 */
+	public static class Result {
+
+		private final String[] patterns;
+		private final int[][] offsets;
+		private final int[] counts;
+
+		Result(String[] patterns) {
+			this.patterns = patterns;
+			this.offsets = new int[patterns.length][];
+			this.counts = new int[patterns.length];
+		}
+
+		void add(int pattern, int offset) {
+			int[] found = offsets[pattern];
+			if (found == null) {
+				found = new int[4];
+				offsets[pattern] = found;
+			} else if (counts[pattern] == found.length) {
+				found = Arrays.copyOf(found, found.length * 2);
+				offsets[pattern] = found;
+			}
+			found[counts[pattern]++] = offset;
+		}
+
+		private int indexOf(String pattern) {
+			for (int p = 0; p < patterns.length; p++) {
+				if (patterns[p].equals(pattern))
+					return p;
+			}
+			throw new IllegalArgumentException("Pattern was not scanned for - " + pattern);
+		}
+
+		public boolean contains(String pattern) {
+			return counts[indexOf(pattern)] > 0;
+		}
+
+		/**
+		 * @return number of matches for the pattern
+		 */
+		public int count(String pattern) {
+			return counts[indexOf(pattern)];
+		}
+
+		/**
+		 * @return offset of the first match, -1 if the pattern was not found
+		 */
+		public int firstOffset(String pattern) {
+			int p = indexOf(pattern);
+			return counts[p] > 0 ? offsets[p][0] : -1;
+		}
+
+		/**
+		 * @return offsets of all matches in source order
+		 */
+		public int[] getOffsets(String pattern) {
+			int p = indexOf(pattern);
+			return counts[p] > 0 ? Arrays.copyOf(offsets[p], counts[p]) : new int[0];
+		}
+	}
+}
@@ -0,0 +1,329 @@
+package acop_com_pages;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Base class of the report formats. Every finding is encoded into a fixed size
+ * buffer as soon as it is raised and the buffer is written to the channel
+ * whenever it is full, so memory use does not grow with the number of pages or
+ * findings. A writer takes findings from ACopChecksV1 (FindingListener) and page
+ * results from AcopBatchRunner (AuditListener) and can be shared by ACopChecksV1
+ * instances auditing in parallel. Formats without page framing (JSON Lines,
+ * SARIF) interleave the findings of parallel audits; a format that groups the
+ * findings of a page (JUnit XML) opens the page on auditStarted and closes it on
+ * auditFinished, so an audit that starts while another page is open waits for it.
+ * Give every thread its own JUnit writer to audit in parallel.
+ *
+ * 	ReportWriter report = new JUnitXmlReportWriter(new File("acop-junit.xml"));
+ * 	try {
+ * 		runner.run(urls, report);
+ * 	} finally {
+ * 		report.close();
+ * 	}
+ *
+ * Write errors are logged once and end the report; close() throws them.
+ *
+ */
+public abstract class ReportWriter implements FindingListener, AuditListener, Closeable {
+
+	private static Log logger = ACopChecksV1.getLog(ReportWriter.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final CharsetEncoder encoder = Charset.forName("UTF-8").newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	/** guards the buffer and the channel without pinning the carrier of a waiting virtual thread */
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition pageClosed = lock.newCondition();
+	/** thread whose page is open in a format with page framing, null if none */
+	private Thread pageOwner = null;
+	private boolean started = false;
+	private boolean closed = false;
+	private IOException failure = null;
+	/** number of findings written for the page audited on the thread, between auditStarted and auditFinished */
+	private final ThreadLocal<int[]> written = new ThreadLocal<int[]>();
+
+	/**
+	 * @param file
+	 *            report file, replaced if it exists
+	 */
+	protected ReportWriter(File file) throws IOException {
+		this(new FileOutputStream(file).getChannel());
+	}
+
+	/**
+	 * @param channel
+	 *            channel the report is written to, closed by close()
+	 */
+	protected ReportWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * @return true if the format groups the findings of a page between
+	 *         writePageStart() and writePageEnd(), so only one page can be open at a time
+	 */
+	protected boolean framesPages() {
+		return false;
+	}
+
+	public void auditStarted(String url) {
+		lock.lock();
+		try {
+			awaitPageClosed();
+			if (framesPages())
+				pageOwner = Thread.currentThread();
+			written.set(new int[1]);
+			start();
+			writePageStart(url);
+		} catch (IOException ex) {
+			failed(ex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void findingRaised(String url, AcopFinding finding) {
+		lock.lock();
+		try {
+			if (written.get() == null)
+				auditStarted(url);
+			writeFinding(url, finding);
+			written.get()[0]++;
+		} catch (IOException ex) {
+			failed(ex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void auditFinished(String url) {
+		lock.lock();
+		try {
+			int[] count = written.get();
+			written.remove();
+			writePageEnd(url, count != null ? count[0] : 0, null);
+		} catch (IOException ex) {
+			failed(ex);
+		} finally {
+			if (pageOwner == Thread.currentThread()) {
+				pageOwner = null;
+				pageClosed.signalAll();
+			}
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes all findings of a page audited by AcopBatchRunner
+	 */
+	public void onResult(AuditResult result) {
+		String url = result.getUrl();
+		List<AcopFinding> findings = result.getFindings();
+		lock.lock();
+		try {
+			awaitPageClosed();
+			start();
+			writePageStart(url);
+			for (AcopFinding finding : findings)
+				writeFinding(url, finding);
+			writePageEnd(url, findings.size(), result);
+		} catch (IOException ex) {
+			failed(ex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until no other thread has a page open, the caller holds the lock
+	 */
+	private void awaitPageClosed() {
+		while (pageOwner != null && pageOwner != Thread.currentThread())
+			pageClosed.awaitUninterruptibly();
+	}
+
+	private void start() throws IOException {
+		if (!started) {
+			started = true;
+			writeHeader();
+		}
+	}
+
+	/**
+	 * Ends the report, writes what is left in the buffer and closes the channel
+	 *
+	 * @throws IOException
+	 *             if the report could not be written completely
+	 */
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (closed)
+				return;
+			closed = true;
+			try {
+				if (failure == null) {
+					start();
+					writeFooter();
+					flush();
+				}
+			} finally {
+				channel.close();
+			}
+			if (failure != null)
+				throw failure;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Written before the first page
+	 */
+	protected abstract void writeHeader() throws IOException;
+
+	protected abstract void writePageStart(String url) throws IOException;
+
+	protected abstract void writeFinding(String url, AcopFinding finding) throws IOException;
+
+	/**
+	 * @param findings
+	 *            number of findings written for the page
+	 * @param result
+	 *            result of the page when it came from AcopBatchRunner, null otherwise
+	 */
+	protected abstract void writePageEnd(String url, int findings, AuditResult result) throws IOException;
+
+	/**
+	 * Written by close()
+	 */
+	protected abstract void writeFooter() throws IOException;
+
+	/**
+	 * Encodes the text into the buffer as UTF-8, writing the buffer out whenever it is full
+	 */
+	protected void write(CharSequence text) throws IOException {
+		if (failure != null)
+			return;
+		CharBuffer chars = CharBuffer.wrap(text);
+		while (true) {
+			CoderResult result = encoder.encode(chars, buffer, true);
+			if (result.isUnderflow())
+				break;
+			if (result.isOverflow())
+				flush();
+			else
+				throw new CharacterCodingException();
+		}
+		encoder.reset();
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	private void failed(IOException ex) {
+		if (failure != null)
+			return;
+		failure = ex;
+		logger.error("Report could not be written, later findings are dropped Error is " + ex.getMessage());
+	}
+
+	/**
+	 * Appends the value as a quoted JSON string, null as null
+	 */
+	protected static void appendJson(StringBuilder out, String value) {
+		if (value == null) {
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20 || c == '\u2028' || c == '\u2029')
+					out.append(String.format("\\u%04x", (int) c));
+				else
+					out.append(c);
+			}
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Appends the value escaped for xml text and attribute values, line breaks and
+	 * tabs as character references so attribute normalization keeps them, characters
+	 * xml does not allow are dropped
+	 */
+	protected static void appendXml(StringBuilder out, String value) {
+		if (value == null)
+			return;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '<':
+				out.append("&lt;");
+				break;
+			case '>':
+				out.append("&gt;");
+				break;
+			case '&':
+				out.append("&amp;");
+				break;
+			case '"':
+				out.append("&quot;");
+				break;
+			case '\n':
+				out.append("&#10;");
+				break;
+			case '\r':
+				out.append("&#13;");
+				break;
+			case '\t':
+				out.append("&#9;");
+				break;
+			default:
+				if (c >= 0x20)
+					out.append(c);
+			}
+		}
+	}
+}
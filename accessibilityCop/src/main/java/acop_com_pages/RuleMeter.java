@@ -0,0 +1,98 @@
+package acop_com_pages;
+
+/**
+ * Collects the metrics of one rule during an audit. start() and stop() bracket
+ * every piece of work done for the rule, which may be interleaved with other
+ * rules when they share a pass over a snapshot.
+ *
+ */
+class RuleMeter {
+
+	private final String ruleId;
+	private WebDriverCallCounter counter;
+	private long wallNanos = 0;
+	private long driverCalls = 0;
+	private long elementsExamined = 0;
+	private int findings = 0;
+	private int timeouts = 0;
+	private long startNanos;
+	private long startCalls;
+
+	/**
+	 * @param counter
+	 *            counter of the driver the audit uses, null if it makes no driver calls
+	 */
+	RuleMeter(String ruleId, WebDriverCallCounter counter) {
+		this.ruleId = ruleId;
+		this.counter = counter;
+	}
+
+	/**
+	 * For a rule that runs on another thread while other rules use the driver - the
+	 * shared counter would charge it with their calls, and it makes none itself
+	 */
+	void ignoreDriverCalls() {
+		counter = null;
+	}
+
+	void start() {
+		startCalls = counter == null ? 0 : counter.getCount();
+		startNanos = System.nanoTime();
+	}
+
+	void stop() {
+		wallNanos += System.nanoTime() - startNanos;
+		if (counter != null)
+			driverCalls += counter.getCount() - startCalls;
+	}
+
+	void examined(int elements) {
+		elementsExamined += elements;
+	}
+
+	void found(int reported) {
+		findings += reported;
+	}
+
+	void timedOut() {
+		timeouts++;
+	}
+
+	RuleMetrics toMetrics() {
+		return new RuleMetrics(ruleId, wallNanos, driverCalls, elementsExamined, findings, timeouts);
+	}
+
+
+	/**
+	 * Visitor that meters the calls of the visitor it wraps
+	 */
+	static class MeteredVisitor implements ElementVisitor {
+
+		private final ElementVisitor visitor;
+		private final RuleMeter meter;
+
+		MeteredVisitor(ElementVisitor visitor, RuleMeter meter) {
+			this.visitor = visitor;
+			this.meter = meter;
+		}
+
+		public void visit(PageElement element, ElementSelector selector, int index) {
+			meter.examined(1);
+			meter.start();
+			try {
+				visitor.visit(element, selector, index);
+			} finally {
+				meter.stop();
+			}
+		}
+
+		public void end() {
+			meter.start();
+			try {
+				visitor.end();
+			} finally {
+				meter.stop();
+			}
+		}
+	}
+}
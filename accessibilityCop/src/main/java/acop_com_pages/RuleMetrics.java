@@ -0,0 +1,69 @@
+package acop_com_pages;
+
+/**
+ * Cost and outcome of one rule in one audit. Wall time of streaming rules that
+ * share a pass over a snapshot only counts the time spent in the rule's visitor.
+ *
+ */
+public class RuleMetrics {
+
+	private final String ruleId;
+	private final long wallNanos;
+	private final long driverCalls;
+	private final long elementsExamined;
+	private final int findings;
+	private final int timeouts;
+
+	/**
+	 * @param ruleId
+	 * @param wallNanos
+	 *            time spent in the rule
+	 * @param driverCalls
+	 *            webdriver commands the rule sent, including calls on the elements it read
+	 * @param elementsExamined
+	 *            elements handed to the rule
+	 * @param findings
+	 *            findings the rule reported
+	 * @param timeouts
+	 *            waits of the rule that ran into their time limit
+	 */
+	public RuleMetrics(String ruleId, long wallNanos, long driverCalls, long elementsExamined, int findings,
+			int timeouts) {
+		this.ruleId = ruleId;
+		this.wallNanos = wallNanos;
+		this.driverCalls = driverCalls;
+		this.elementsExamined = elementsExamined;
+		this.findings = findings;
+		this.timeouts = timeouts;
+	}
+
+	public String getRuleId() {
+		return ruleId;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	public long getDriverCalls() {
+		return driverCalls;
+	}
+
+	public long getElementsExamined() {
+		return elementsExamined;
+	}
+
+	public int getFindings() {
+		return findings;
+	}
+
+	public int getTimeouts() {
+		return timeouts;
+	}
+
+	@Override
+	public String toString() {
+		return "rule " + ruleId + " " + (wallNanos / 1000000) + " ms, " + driverCalls + " driver calls, "
+				+ elementsExamined + " elements, " + findings + " findings, " + timeouts + " timeouts";
+	}
+}
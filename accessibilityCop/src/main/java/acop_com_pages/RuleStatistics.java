@@ -0,0 +1,64 @@
+package acop_com_pages;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Totals of one rule over all audits an InMemoryMetricsSink received. Shown as
+ * composite data by JMX consoles.
+ *
+ */
+public class RuleStatistics {
+
+	private final long runs;
+	private final long wallNanos;
+	private final long driverCalls;
+	private final long elementsExamined;
+	private final long findings;
+	private final long timeouts;
+
+	@ConstructorProperties({ "runs", "wallNanos", "driverCalls", "elementsExamined", "findings", "timeouts" })
+	public RuleStatistics(long runs, long wallNanos, long driverCalls, long elementsExamined, long findings,
+			long timeouts) {
+		this.runs = runs;
+		this.wallNanos = wallNanos;
+		this.driverCalls = driverCalls;
+		this.elementsExamined = elementsExamined;
+		this.findings = findings;
+		this.timeouts = timeouts;
+	}
+
+	/**
+	 * @return totals with the metrics of one more run of the rule added
+	 */
+	RuleStatistics add(RuleMetrics rule) {
+		return new RuleStatistics(runs + 1, wallNanos + rule.getWallNanos(), driverCalls + rule.getDriverCalls(),
+				elementsExamined + rule.getElementsExamined(), findings + rule.getFindings(), timeouts + rule.getTimeouts());
+	}
+
+	/**
+	 * @return number of audits the rule ran in
+	 */
+	public long getRuns() {
+		return runs;
+	}
+
+	public long getWallNanos() {
+		return wallNanos;
+	}
+
+	public long getDriverCalls() {
+		return driverCalls;
+	}
+
+	public long getElementsExamined() {
+		return elementsExamined;
+	}
+
+	public long getFindings() {
+		return findings;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+}
@@ -0,0 +1,129 @@
+package acop_com_pages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a SARIF 2.1.0 log with a single run, the format code scanning tools
+ * import. The rules are listed in the tool section, every finding is a result
+ * located by the page url (artifact), the element locator (logical location)
+ * and the page source offset if known. Results are written one per line as they
+ * are raised; pages AcopBatchRunner could not audit are counted in the invocation
+ * at the end.
+ *
+ */
+public class SarifReportWriter extends ReportWriter {
+
+	private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+
+	private final AcopRuleRegistry ruleRegistry;
+	private boolean firstResult = true;
+	private int failedPages = 0;
+
+	/**
+	 * Report listing the rules of AcopRuleRegistry.createDefault()
+	 */
+	public SarifReportWriter(File file) throws IOException {
+		this(file, AcopRuleRegistry.createDefault());
+	}
+
+	/**
+	 * @param ruleRegistry
+	 *            registry whose enabled rules are listed in the report, null to list none
+	 */
+	public SarifReportWriter(File file, AcopRuleRegistry ruleRegistry) throws IOException {
+		super(file);
+		this.ruleRegistry = ruleRegistry;
+	}
+
+	public SarifReportWriter(WritableByteChannel channel, AcopRuleRegistry ruleRegistry) {
+		super(channel);
+		this.ruleRegistry = ruleRegistry;
+	}
+
+	@Override
+	protected void writeHeader() throws IOException {
+		StringBuilder json = new StringBuilder(4096);
+		json.append("{\"$schema\":\"").append(SCHEMA).append("\",\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{")
+				.append("\"name\":\"accessibilityCop\",\"version\":");
+		appendJson(json, BuiltInRules.VERSION);
+		json.append(",\"informationUri\":\"https://github.com/neurites/seleniumAccessibility\",\"rules\":[");
+		if (ruleRegistry != null) {
+			boolean first = true;
+			for (AcopRule rule : ruleRegistry.getEnabledRules()) {
+				json.append(first ? "\n" : ",\n");
+				first = false;
+				json.append("{\"id\":");
+				appendJson(json, rule.getId());
+				json.append(",\"shortDescription\":{\"text\":");
+				appendJson(json, rule.getDescription());
+				json.append("}}");
+			}
+		}
+		json.append("]}},\"results\":[");
+		write(json);
+	}
+
+	@Override
+	protected void writePageStart(String url) {
+	}
+
+	@Override
+	protected void writeFinding(String url, AcopFinding finding) throws IOException {
+		StringBuilder json = new StringBuilder(512);
+		json.append(firstResult ? "\n" : ",\n");
+		firstResult = false;
+		json.append("{\"ruleId\":");
+		appendJson(json, finding.getRuleId());
+		json.append(",\"level\":\"").append(finding.getSeverity() == AcopFinding.Severity.ERROR ? "error" : "warning");
+		json.append("\",\"message\":{\"text\":");
+		appendJson(json, finding.getMessage().trim());
+		json.append("},\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+		appendJson(json, url);
+		json.append('}');
+		if (finding.getSourceOffset() >= 0)
+			json.append(",\"region\":{\"charOffset\":").append(finding.getSourceOffset()).append('}');
+		json.append('}');
+		if (finding.getLocator() != null) {
+			json.append(",\"logicalLocations\":[{\"kind\":\"element\",\"fullyQualifiedName\":");
+			appendJson(json, finding.getFramePath() != null ? finding.getFramePath() + " / " + finding.getLocator()
+					: finding.getLocator());
+			json.append("}]");
+		}
+		json.append("}]");
+		if (finding.getAttribute() != null || finding.getFramePath() != null) {
+			json.append(",\"properties\":{");
+			if (finding.getAttribute() != null) {
+				json.append("\"attribute\":");
+				appendJson(json, finding.getAttribute());
+			}
+			if (finding.getFramePath() != null) {
+				json.append(finding.getAttribute() != null ? ",\"framePath\":" : "\"framePath\":");
+				appendJson(json, finding.getFramePath());
+			}
+			json.append('}');
+		}
+		json.append('}');
+		write(json);
+	}
+
+	@Override
+	protected void writePageEnd(String url, int findings, AuditResult result) {
+		if (result != null && (result.getStatus() == AuditResult.Status.FAILED
+				|| result.getStatus() == AuditResult.Status.TIMED_OUT))
+			failedPages++;
+	}
+
+	@Override
+	protected void writeFooter() throws IOException {
+		StringBuilder json = new StringBuilder(256);
+		json.append("\n],\"invocations\":[{\"executionSuccessful\":").append(failedPages == 0);
+		if (failedPages > 0) {
+			json.append(",\"toolExecutionNotifications\":[{\"level\":\"error\",\"message\":{\"text\":\"")
+					.append(failedPages).append(" pages could not be audited\"}}]");
+		}
+		json.append("}]}]}\n");
+		write(json);
+	}
+}
@@ -0,0 +1,141 @@
+package acop_com_pages;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Runs the accessibility rules on html files or strings without a browser. The
+ * markup is parsed once with a streaming SAX parser into a PageSnapshot and
+ * scanned once for the page source rules; the rules themselves are the same
+ * AcopRule instances ACopChecksV1 runs in snapshot mode, with the streaming
+ * rules sharing one pass over the parsed elements.
+ *
+ * 	StaticHtmlAuditor auditor = new StaticHtmlAuditor();
+ * 	List<AcopFinding> findings = auditor.audit(new File("index.html"));
+ *
+ * Differences to a browser audit: scripts are not run, so only server rendered
+ * markup is audited, and page source offsets refer to the file as written.
+ * Element text leaves out what the markup itself hides (the hidden attribute,
+ * inline display:none and visibility:hidden), but hiding done by stylesheets or
+ * scripts cannot be seen without a browser, so such text still counts here.
+ * An auditor can be shared between threads.
+ *
+ */
+public class StaticHtmlAuditor {
+
+	private static Log logger = ACopChecksV1.getLog(StaticHtmlAuditor.class);
+
+	private AcopRuleRegistry ruleRegistry = AcopRuleRegistry.createDefault();
+	private String encoding = "UTF-8";
+	private AuditResultCache resultCache = null;
+
+	/**
+	 * @param ruleRegistry
+	 *            rules to run, defaults to AcopRuleRegistry.createDefault()
+	 */
+	public void setRuleRegistry(AcopRuleRegistry ruleRegistry) {
+		this.ruleRegistry = ruleRegistry;
+	}
+
+	public AcopRuleRegistry getRuleRegistry() {
+		return ruleRegistry;
+	}
+
+	/**
+	 * @param encoding
+	 *            character encoding of audited files, UTF-8 by default
+	 */
+	public void setEncoding(String encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * @param resultCache
+	 *            findings of already audited markup, null (default) to parse every file
+	 */
+	public void setResultCache(AuditResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	/**
+	 * Audits a html file, src and href values are resolved against the file url
+	 */
+	public List<AcopFinding> audit(File file) throws IOException {
+		return audit(read(file), file.toURI().toString());
+	}
+
+	/**
+	 * @param html
+	 *            page markup
+	 * @param baseUrl
+	 *            url src and href values are resolved against, null to report them as written
+	 * @return findings in rule order
+	 */
+	public List<AcopFinding> audit(String html, String baseUrl) throws IOException {
+		AuditResultCache cache = resultCache;
+		String cacheKey = null;
+		if (cache != null) {
+			cacheKey = AuditResultCache.key(html, ruleRegistry.getRuleSetVersion() + ";" + baseUrl);
+			List<AcopFinding> cached = cache.get(cacheKey);
+			if (cached != null)
+				return new ArrayList<AcopFinding>(cached);
+		}
+		List<AcopRule> rules = ruleRegistry.getEnabledRules();
+		List<ElementSelector> selectors = new ArrayList<ElementSelector>();
+		for (AcopRule rule : rules)
+			selectors.addAll(rule.getSelectors());
+
+		List<AcopFinding> findings = new ArrayList<AcopFinding>();
+		AuditContext run = new AuditContext(null, findings);
+		run.setSnapshot(new StaticPageParser(selectors, baseUrl).parse(new StringReader(html)));
+		run.setSourceScan(BuiltInRules.SOURCE_SCANNER.scan(html));
+		OnePassEvaluator.run(rules, run);
+		if (cacheKey != null)
+			cache.put(cacheKey, findings);
+		return findings;
+	}
+
+	private String read(File file) throws IOException {
+		StringBuilder html = new StringBuilder((int) Math.min(file.length(), Integer.MAX_VALUE));
+		Reader reader = new InputStreamReader(new FileInputStream(file), encoding);
+		try {
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) >= 0)
+				html.append(buffer, 0, read);
+		} finally {
+			reader.close();
+		}
+		return html.toString();
+	}
+
+	/**
+	 * Audits the given html files and prints every finding as "file: message"
+	 *
+	 * @return exit status 1 if any finding was reported or a file could not be read
+	 */
+	public static void main(String[] args) {
+		StaticHtmlAuditor auditor = new StaticHtmlAuditor();
+		int status = 0;
+		for (String name : args) {
+			try {
+				for (AcopFinding finding : auditor.audit(new File(name))) {
+					System.out.println(name + ": " + finding.getMessage());
+					status = 1;
+				}
+			} catch (IOException ex) {
+				logger.error("Html file " + name + " could not be audited Error is " + ex.getMessage());
+				status = 1;
+			}
+		}
+		System.exit(status);
+	}
+}
@@ -0,0 +1,211 @@
+package acop_com_pages;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cyberneko.html.parsers.SAXParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Builds a PageSnapshot from html markup with the nekohtml SAX parser - the same
+ * elements, attributes, text and ancestor links PageSnapshot.capture() gets from
+ * a browser, without building a DOM. Like the browser, nekohtml adds the implied
+ * html, head and body elements and closes unclosed tags.
+ *
+ * Element text follows PageSnapshot.TEXT_FUNCTION as far as the markup shows it:
+ * script and style content, elements with the hidden attribute or an inline
+ * display:none and text under an inline visibility:hidden (unless a descendant
+ * sets visibility:visible) are left out, and block level elements separate words.
+ *
+ */
+class StaticPageParser extends DefaultHandler {
+
+	private static final String ELEMENT_NAMES = "http://cyberneko.org/html/properties/names/elems";
+	private static final String ATTRIBUTE_NAMES = "http://cyberneko.org/html/properties/names/attrs";
+
+	/** tags the browser text puts on a line of their own, see PageSnapshot.TEXT_FUNCTION */
+	private static final Set<String> BLOCK_TAGS = new HashSet<String>(Arrays.asList("p", "h1", "h2", "h3", "h4",
+			"h5", "h6", "dl", "div", "noscript", "blockquote", "form", "hr", "table", "fieldset", "address", "ul", "ol",
+			"pre", "br"));
+
+	private final Set<String> tags = new HashSet<String>();
+	private final Set<String> textTags = new HashSet<String>();
+	private final Set<String> attributeNames = new HashSet<String>();
+	private final URI baseUri;
+
+	private final List<PageSnapshot.Element> elements = new ArrayList<PageSnapshot.Element>();
+	/** nearest captured element (or null) for every open element */
+	private final List<PageSnapshot.Element> ancestors = new ArrayList<PageSnapshot.Element>();
+	/** open elements whose text is captured, with the text collected so far */
+	private final List<PageSnapshot.Element> textElements = new ArrayList<PageSnapshot.Element>();
+	private final List<StringBuilder> texts = new ArrayList<StringBuilder>();
+	private final List<Integer> textDepths = new ArrayList<Integer>();
+	/** depth of the outermost open element whose content is not displayed, -1 if none */
+	private int skippedDepth = -1;
+	/** visibility of every open element, inherited unless its inline style sets it */
+	private final List<Boolean> visible = new ArrayList<Boolean>();
+
+	/**
+	 * @param selectors
+	 *            selectors of the rules that will run against the snapshot
+	 * @param baseUrl
+	 *            url src and href attributes are resolved against, null to keep them as written
+	 */
+	StaticPageParser(Collection<ElementSelector> selectors, String baseUrl) {
+		PageSnapshot.collectCaptureSets(selectors, tags, textTags, attributeNames);
+		URI base = null;
+		if (baseUrl != null) {
+			try {
+				base = new URI(baseUrl);
+			} catch (Exception ex) {
+				base = null;
+			}
+		}
+		this.baseUri = base;
+	}
+
+	/**
+	 * Parses the markup, the parser can only be used once
+	 */
+	PageSnapshot parse(Reader html) throws IOException {
+		SAXParser parser = new SAXParser();
+		try {
+			parser.setProperty(ELEMENT_NAMES, "lower");
+			parser.setProperty(ATTRIBUTE_NAMES, "lower");
+			parser.setContentHandler(this);
+			parser.parse(new InputSource(html));
+		} catch (SAXException ex) {
+			throw new IOException("Html could not be parsed Error is " + ex.getMessage());
+		}
+		return new PageSnapshot(elements);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes attributes) {
+		String tag = qName.toLowerCase();
+		int depth = ancestors.size();
+		String style = attributes.getValue("style");
+		if (skippedDepth < 0 && ("script".equals(tag) || "style".equals(tag) || attributes.getValue("hidden") != null
+				|| "none".equals(styleValue(style, "display"))))
+			skippedDepth = depth;
+		String visibility = styleValue(style, "visibility");
+		visible.add(visibility != null ? Boolean.valueOf(!"hidden".equals(visibility))
+				: (depth > 0 ? visible.get(depth - 1) : Boolean.TRUE));
+		if (BLOCK_TAGS.contains(tag))
+			separate();
+		PageSnapshot.Element parent = depth > 0 ? ancestors.get(depth - 1) : null;
+		if (!tags.contains(tag)) {
+			ancestors.add(parent);
+			return;
+		}
+		Map<String, String> captured = new HashMap<String, String>();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			String name = attributes.getQName(i).toLowerCase();
+			if (attributeNames.contains(name))
+				captured.put(name, resolve(name, attributes.getValue(i)));
+		}
+		PageSnapshot.Element element = new PageSnapshot.Element(elements.size(), tag, captured, null, parent);
+		elements.add(element);
+		ancestors.add(element);
+		if (textTags.contains(tag)) {
+			textElements.add(element);
+			texts.add(new StringBuilder());
+			textDepths.add(depth);
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) {
+		int depth = ancestors.size() - 1;
+		ancestors.remove(depth);
+		visible.remove(depth);
+		if (skippedDepth == depth)
+			skippedDepth = -1;
+		if (BLOCK_TAGS.contains(qName.toLowerCase()))
+			separate();
+		int last = textDepths.size() - 1;
+		if (last >= 0 && textDepths.get(last) == depth) {
+			textElements.remove(last).setText(normalize(texts.remove(last)));
+			textDepths.remove(last);
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		if (skippedDepth >= 0 || (!visible.isEmpty() && !visible.get(visible.size() - 1).booleanValue()))
+			return;
+		for (StringBuilder text : texts)
+			text.append(ch, start, length);
+	}
+
+	/**
+	 * Block level elements end a line in the browser text, a space once white space is collapsed
+	 */
+	private void separate() {
+		if (skippedDepth >= 0)
+			return;
+		for (StringBuilder text : texts)
+			text.append(' ');
+	}
+
+	/**
+	 * @return lower case value of the property in an inline style attribute, null if it is not set
+	 */
+	static String styleValue(String style, String property) {
+		if (style == null)
+			return null;
+		String value = null;
+		for (String declaration : style.split(";")) {
+			int colon = declaration.indexOf(':');
+			if (colon < 0 || !declaration.substring(0, colon).trim().equalsIgnoreCase(property))
+				continue;
+			value = declaration.substring(colon + 1).replace("!important", "").trim().toLowerCase();
+		}
+		return value;
+	}
+
+	/**
+	 * src and href come back resolved, as from WebElement.getAttribute
+	 */
+	private String resolve(String name, String value) {
+		if (baseUri == null || !("src".equals(name) || "href".equals(name)))
+			return value;
+		try {
+			return baseUri.resolve(value.trim()).toString();
+		} catch (IllegalArgumentException ex) {
+			return value;
+		}
+	}
+
+	/**
+	 * Collapses white space runs into one space and trims, as the snapshot script does
+	 */
+	private static String normalize(CharSequence text) {
+		StringBuilder normalized = new StringBuilder(text.length());
+		boolean space = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c) || c == '\u00a0') {
+				space = normalized.length() > 0;
+			} else {
+				if (space)
+					normalized.append(' ');
+				normalized.append(c);
+				space = false;
+			}
+		}
+		return normalized.toString();
+	}
+}
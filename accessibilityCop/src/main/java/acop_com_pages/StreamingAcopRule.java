@@ -0,0 +1,21 @@
+package acop_com_pages;
+
+/**
+ * A rule that can be evaluated element by element. When a snapshot is available
+ * the elements of all streaming rules are dispatched in a single pass over the
+ * snapshot, instead of every rule filtering the whole page for its selectors.
+ *
+ * Visitors of different rules see the elements interleaved in document order, so
+ * a visitor must not rely on receiving all elements of one selector before the
+ * next; state that needs every element (e.g. an id index) is evaluated in end().
+ *
+ */
+public interface StreamingAcopRule extends AcopRule {
+
+	/**
+	 * @param context
+	 *            context of the run, findings are reported to it
+	 * @return new visitor holding the state of this rule for one audit
+	 */
+	ElementVisitor createVisitor(AuditContext context);
+}
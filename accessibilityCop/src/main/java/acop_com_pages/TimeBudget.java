@@ -0,0 +1,50 @@
+package acop_com_pages;
+
+/**
+ * Time a rule or a whole audit may take. The clock only runs between start() and
+ * stop(), so a rule whose work is interleaved with other rules (a shared pass
+ * over a snapshot) is only charged for its own share; an audit budget is started
+ * once and never stopped.
+ *
+ */
+final class TimeBudget {
+
+	private final long limitMillis;
+	private final long limitNanos;
+	private long usedNanos = 0;
+	private long startNanos;
+	private boolean running = false;
+
+	TimeBudget(long limitMillis) {
+		this.limitMillis = limitMillis;
+		this.limitNanos = limitMillis * 1000000L;
+	}
+
+	long getLimitMillis() {
+		return limitMillis;
+	}
+
+	void start() {
+		startNanos = System.nanoTime();
+		running = true;
+	}
+
+	void stop() {
+		if (running)
+			usedNanos += System.nanoTime() - startNanos;
+		running = false;
+	}
+
+	/**
+	 * @return time left in milliseconds, 0 or less once the budget is used up
+	 */
+	long remainingMillis() {
+		long used = usedNanos + (running ? System.nanoTime() - startNanos : 0);
+		return (limitNanos - used) / 1000000L;
+	}
+
+	boolean isExpired() {
+		long used = usedNanos + (running ? System.nanoTime() - startNanos : 0);
+		return used >= limitNanos;
+	}
+}
@@ -0,0 +1,139 @@
+package acop_com_pages;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Counts the calls made through a webdriver - every driver method and every method
+ * of the elements it returns (getAttribute, getText, ...) is one call. With a
+ * remote driver each call is a command sent to the browser, so the count is the
+ * number of round trips an audit costs.
+ *
+ * 	WebDriverCallCounter counter = new WebDriverCallCounter();
+ * 	ACopChecksV1 checks = new ACopChecksV1(counter.wrap(driver));
+ * 	checks.runAcopChecks();
+ * 	long calls = counter.getCount();
+ *
+ */
+public class WebDriverCallCounter {
+
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * @return driver that forwards to the given driver and counts every call, it
+	 *         implements all interfaces of the wrapped driver (JavascriptExecutor, ...)
+	 */
+	public WebDriver wrap(WebDriver driver) {
+		return (WebDriver) proxy(driver);
+	}
+
+	/**
+	 * @return number of calls since creation or the last reset
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	public void reset() {
+		count.set(0);
+	}
+
+	private Object proxy(Object target) {
+		Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+		for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+			for (Class<?> implemented : type.getInterfaces())
+				interfaces.add(implemented);
+		}
+		return Proxy.newProxyInstance(target.getClass().getClassLoader(),
+				interfaces.toArray(new Class<?>[interfaces.size()]), new Handler(target));
+	}
+
+	/**
+	 * Elements returned by the driver and calls through switchTo() are counted as well
+	 */
+	private Object wrapResult(Object result) {
+		if (result instanceof WebElement || result instanceof WebDriver || result instanceof WebDriver.TargetLocator)
+			return proxy(result);
+		if (result instanceof List) {
+			// script results (lists of lists) are only copied if they contain elements
+			List<?> items = (List<?>) result;
+			List<Object> wrapped = null;
+			for (int i = 0; i < items.size(); i++) {
+				Object item = items.get(i);
+				Object wrappedItem = wrapResult(item);
+				if (wrapped == null && wrappedItem != item) {
+					wrapped = new ArrayList<Object>(items.size());
+					wrapped.addAll(items.subList(0, i));
+				}
+				if (wrapped != null)
+					wrapped.add(wrappedItem);
+			}
+			return wrapped != null ? wrapped : result;
+		}
+		return result;
+	}
+
+	/**
+	 * The wrapped driver only accepts its own elements, e.g. as executeScript arguments
+	 */
+	private static Object unwrap(Object argument) {
+		if (argument != null && Proxy.isProxyClass(argument.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(argument);
+			if (handler instanceof Handler)
+				return ((Handler) handler).target;
+		}
+		if (argument instanceof Object[]) {
+			Object[] items = (Object[]) argument;
+			Object[] unwrapped = (Object[]) Array.newInstance(items.getClass().getComponentType(), items.length);
+			for (int i = 0; i < items.length; i++)
+				unwrapped[i] = unwrap(items[i]);
+			return unwrapped;
+		}
+		if (argument instanceof List) {
+			List<Object> unwrapped = new ArrayList<Object>();
+			for (Object item : (List<?>) argument)
+				unwrapped.add(unwrap(item));
+			return unwrapped;
+		}
+		return argument;
+	}
+
+
+	private class Handler implements InvocationHandler {
+
+		private final Object target;
+
+		Handler(Object target) {
+			this.target = target;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getDeclaringClass() == Object.class) {
+				if ("equals".equals(method.getName()))
+					return target.equals(unwrap(args[0]));
+				return method.invoke(target, args);
+			}
+			count.incrementAndGet();
+			if (args != null) {
+				for (int i = 0; i < args.length; i++)
+					args[i] = unwrap(args[i]);
+			}
+			try {
+				return wrapResult(method.invoke(target, args));
+			} catch (InvocationTargetException ex) {
+				throw ex.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package acop_com_pages;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Creates the browser sessions used by AcopBatchRunner, e.g.
+ * 	- new HtmlUnitDriver(true) for offline audits of local html files
+ * 	- new FirefoxDriver() for audits in a real browser
+ *
+ */
+public interface WebDriverFactory {
+
+	/**
+	 * @return a new webdriver session, owned and quit by the caller
+	 */
+	WebDriver createDriver();
+}
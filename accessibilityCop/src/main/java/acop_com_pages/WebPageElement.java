@@ -0,0 +1,46 @@
+package acop_com_pages;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * PageElement backed by a live WebElement. Every call is a webdriver round-trip.
+ *
+ */
+public class WebPageElement implements PageElement {
+
+	private final WebElement element;
+
+	public WebPageElement(WebElement element) {
+		this.element = element;
+	}
+
+	public String getTagName() {
+		return element.getTagName().toLowerCase();
+	}
+
+	public String getAttribute(String name) {
+		return element.getAttribute(name);
+	}
+
+	public String getText() {
+		return element.getText();
+	}
+
+	public WebElement getWebElement() {
+		return element;
+	}
+
+	/**
+	 * Two wrappers are equal if they wrap the same element, e.g. when one element
+	 * is found by two selectors
+	 */
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof WebPageElement && element.equals(((WebPageElement) other).element);
+	}
+
+	@Override
+	public int hashCode() {
+		return element.hashCode();
+	}
+}
@@ -0,0 +1,202 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.Test;
+
+public class AcopBatchRunnerTest {
+
+	private static final String COMPLETED = TestPages.url("accessible.html");
+	private static final String PARTIAL = TestPages.url("inaccessible.html");
+	private static final String TIMED_OUT = TestPages.url("accessible.html") + "?slow";
+	private static final String FAILED = TestPages.url("accessible.html") + "?fail";
+
+	@Test
+	public void reportsOneResultPerStatus() throws InterruptedException {
+		SessionFactory factory = new SessionFactory(0);
+		final Map<String, AuditResult> results = new HashMap<String, AuditResult>();
+		AcopBatchRunner runner = new SlowRunner(factory, 2, 4000);
+		runner.setUrlTimeout(3000);
+
+		int audited = runner.run(Arrays.asList(COMPLETED, PARTIAL, TIMED_OUT, FAILED), new AuditListener() {
+			public void onResult(AuditResult result) {
+				results.put(result.getUrl(), result);
+			}
+		});
+
+		assertEquals(audited, 4);
+		assertEquals(results.get(COMPLETED).getStatus(), AuditResult.Status.COMPLETED);
+		assertTrue(results.get(COMPLETED).getFindings().isEmpty(), results.get(COMPLETED).getErrors().toString());
+		assertEquals(results.get(PARTIAL).getStatus(), AuditResult.Status.PARTIAL);
+		boolean timeoutReported = false;
+		for (AcopFinding finding : results.get(PARTIAL).getFindings())
+			timeoutReported |= finding.isTimeout();
+		assertTrue(timeoutReported);
+		assertEquals(results.get(TIMED_OUT).getStatus(), AuditResult.Status.TIMED_OUT);
+		assertEquals(results.get(FAILED).getStatus(), AuditResult.Status.FAILED);
+		assertNotNull(results.get(FAILED).getError());
+	}
+
+	@Test
+	public void quitsTimedOutSessionOnlyAfterItsAuditReturned() throws InterruptedException {
+		SessionFactory factory = new SessionFactory(0);
+		SlowRunner runner = new SlowRunner(factory, 1, 3000);
+		runner.setUrlTimeout(2000);
+		final List<AuditResult> results = new ArrayList<AuditResult>();
+
+		runner.run(Arrays.asList(TIMED_OUT, COMPLETED), new AuditListener() {
+			public void onResult(AuditResult result) {
+				results.add(result);
+			}
+		});
+		runner.awaitSlowAudits();
+
+		assertEquals(results.get(0).getStatus(), AuditResult.Status.TIMED_OUT);
+		assertEquals(results.get(1).getStatus(), AuditResult.Status.COMPLETED);
+		assertEquals(factory.sessions.size(), 2, "timed out session is replaced");
+		Session timedOut = factory.sessions.get(0);
+		assertEquals(timedOut.quits.get(), 1);
+		assertFalse(timedOut.quitWhileInUse, "session was quit while its audit still used it");
+	}
+
+	@Test
+	public void keepsWorkingWhenSessionCreationAndListenerFail() throws InterruptedException {
+		SessionFactory factory = new SessionFactory(1);
+		final List<AuditResult> results = Collections.synchronizedList(new ArrayList<AuditResult>());
+		final AtomicInteger calls = new AtomicInteger();
+		AcopBatchRunner runner = new AcopBatchRunner(factory, 1);
+
+		int audited = runner.run(Arrays.asList(COMPLETED, COMPLETED + "?2", COMPLETED + "?3"), new AuditListener() {
+			public void onResult(AuditResult result) {
+				results.add(result);
+				if (calls.incrementAndGet() == 2)
+					throw new IllegalStateException("listener failure");
+			}
+		});
+
+		assertEquals(audited, 3);
+		assertEquals(results.size(), 3);
+		assertEquals(results.get(0).getStatus(), AuditResult.Status.FAILED, "session creation failed");
+		assertEquals(results.get(1).getStatus(), AuditResult.Status.COMPLETED);
+		assertEquals(results.get(2).getStatus(), AuditResult.Status.COMPLETED, "worker survived the listener");
+	}
+
+
+	/**
+	 * Audits "?slow" urls slowly, stops every audit of inaccessible.html through its
+	 * time budget and fails the audit of "?fail" urls with a broken rule
+	 */
+	private static class SlowRunner extends AcopBatchRunner {
+
+		private final List<Thread> slowAudits = Collections.synchronizedList(new ArrayList<Thread>());
+		private final long slowMillis;
+
+		SlowRunner(WebDriverFactory factory, int poolSize, long slowMillis) {
+			super(factory, poolSize);
+			this.slowMillis = slowMillis;
+		}
+
+		@Override
+		protected ACopChecksV1 createChecks(WebDriver driver) {
+			ACopChecksV1 checks = super.createChecks(driver);
+			if (driver.getCurrentUrl().endsWith("inaccessible.html"))
+				checks.setTimeBudgets(1, 0);
+			if (driver.getCurrentUrl().endsWith("?fail")) {
+				checks.getRuleRegistry().register(new AbstractAcopRule("broken", "Rule that always fails", 0) {
+					public void check(AuditContext context) {
+						throw new IllegalStateException("rule failure");
+					}
+				});
+			}
+			return checks;
+		}
+
+		@Override
+		protected List<AcopFinding> audit(WebDriver driver, String url) {
+			if (!url.endsWith("?slow"))
+				return super.audit(driver, url);
+			slowAudits.add(Thread.currentThread());
+			Session session = (Session) driver;
+			session.inUse = true;
+			try {
+				// ignores the interrupt of the timeout like a browser call stuck in I/O
+				long end = System.currentTimeMillis() + slowMillis;
+				while (System.currentTimeMillis() < end) {
+					try {
+						Thread.sleep(end - System.currentTimeMillis());
+					} catch (InterruptedException ex) {
+						// keep going
+					}
+				}
+				return super.audit(driver, url);
+			} finally {
+				session.inUse = false;
+			}
+		}
+
+		void awaitSlowAudits() throws InterruptedException {
+			for (Thread thread : new ArrayList<Thread>(slowAudits))
+				thread.join(5000);
+			// the audit thread quits the abandoned session right after audit() returned
+			Thread.sleep(200);
+		}
+	}
+
+	/**
+	 * Creates Session drivers, the first failures sessions fail to start
+	 */
+	private static class SessionFactory implements WebDriverFactory {
+
+		private final List<Session> sessions = Collections.synchronizedList(new ArrayList<Session>());
+		private int failures;
+
+		SessionFactory(int failures) {
+			this.failures = failures;
+		}
+
+		public synchronized WebDriver createDriver() {
+			if (failures > 0) {
+				failures--;
+				throw new IllegalStateException("browser did not start");
+			}
+			Session session = new Session();
+			sessions.add(session);
+			return session;
+		}
+	}
+
+	/**
+	 * HtmlUnitDriver that records when it is quit
+	 */
+	private static class Session extends HtmlUnitDriver {
+
+		private volatile boolean inUse = false;
+		private volatile boolean quitWhileInUse = false;
+		private final AtomicInteger quits = new AtomicInteger();
+
+		Session() {
+			super(true);
+		}
+
+		@Override
+		public void quit() {
+			if (inUse)
+				quitWhileInUse = true;
+			quits.incrementAndGet();
+			super.quit();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+
+public class AsyncAuditTest {
+
+	@Test
+	public void completesWithTheFindingsOfItsOwnAudit() throws Exception {
+		WebDriver driver = TestPages.open("inaccessible.html");
+		try {
+			List<String> expected = messages(TestPages.audit("inaccessible.html"));
+			ACopChecksV1 checks = new ACopChecksV1(driver);
+
+			List<AcopFinding> first = checks.runAcopChecksAsync().get();
+			List<AcopFinding> second = checks.runAcopChecksAsync().get();
+
+			assertEquals(messages(first), expected);
+			assertEquals(messages(second), expected, "findings of the first audit are not returned again");
+			assertEquals(checks.getFindings().size(), 2 * expected.size(), "acopErrorList keeps both audits");
+		} finally {
+			driver.quit();
+		}
+	}
+
+	@Test
+	public void runsAuditsOfOneInstanceOneAfterTheOther() throws Exception {
+		WebDriver driver = TestPages.open("inaccessible.html");
+		try {
+			final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+			ACopChecksV1 checks = new ACopChecksV1(driver);
+			checks.setFindingListener(new FindingListener() {
+				public void auditStarted(String url) {
+					events.add("started");
+				}
+
+				public void findingRaised(String url, AcopFinding finding) {
+				}
+
+				public void auditFinished(String url) {
+					events.add("finished");
+				}
+			});
+
+			List<CompletableFuture<List<AcopFinding>>> audits = new ArrayList<CompletableFuture<List<AcopFinding>>>();
+			for (int i = 0; i < 3; i++)
+				audits.add(checks.runAcopChecksAsync());
+			checks.runAcopChecks();
+			int findings = -1;
+			for (CompletableFuture<List<AcopFinding>> audit : audits) {
+				int size = audit.get().size();
+				assertTrue(findings < 0 || size == findings, "every audit returns one page of findings");
+				findings = size;
+			}
+
+			assertEquals(events.size(), 8);
+			for (int i = 0; i < events.size(); i++)
+				assertEquals(events.get(i), i % 2 == 0 ? "started" : "finished", events.toString());
+			assertEquals(checks.getFindings().size(), 4 * findings);
+		} finally {
+			driver.quit();
+		}
+	}
+
+	private static List<String> messages(List<AcopFinding> findings) {
+		List<String> messages = new ArrayList<String>();
+		for (AcopFinding finding : findings)
+			messages.add(finding.getMessage());
+		return messages;
+	}
+}
@@ -0,0 +1,158 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AuditResultCacheTest {
+
+	private File storeFile;
+
+	@BeforeMethod
+	public void createStoreFile() throws IOException {
+		storeFile = File.createTempFile("acop-results", ".cache");
+		storeFile.delete();
+	}
+
+	@AfterMethod
+	public void deleteStoreFile() {
+		storeFile.delete();
+		new File(storeFile.getPath() + ".tmp").delete();
+	}
+
+	@Test
+	public void readsBackWhatWasStored() throws IOException {
+		StringBuilder longDetail = new StringBuilder();
+		while (longDetail.length() < 70000)
+			longDetail.append("détail ");
+		List<AcopFinding> findings = Arrays.asList(
+				AcopFinding.pageError("4", "Accessbility Rule 4 - Document type is missing"),
+				AcopFinding.elementError("1", "Accessbility Rule 1 - Alternate Text Missing for Image - ",
+						new ElementSelector("//img", "img"), 2, "alt", "http://example.com/ü.png"),
+				AcopFinding.sourceError("8", "Accessbility Rule 8 - Avoid <b> - ", "<b>", 120),
+				new AcopFinding("custom", AcopFinding.Severity.WARNING, "Long ", null, -1, null, longDetail.toString(), -1),
+				AcopFinding.timeout("7", true, "rule budget").inFrame("0/1"));
+		String key = AuditResultCache.key("<html>\r\n</html>", "v1");
+
+		AuditResultCache cache = new AuditResultCache(10, storeFile);
+		cache.put(key, findings);
+		cache.close();
+		AuditResultCache reloaded = new AuditResultCache(10, storeFile);
+
+		assertEquals(reloaded.size(), 1);
+		assertEquals(key, AuditResultCache.key("<html>\n</html>", "v1"), "line endings are normalized");
+		List<AcopFinding> read = reloaded.get(key);
+		assertNotNull(read);
+		assertEquals(read.size(), findings.size());
+		for (int i = 0; i < findings.size(); i++) {
+			AcopFinding expected = findings.get(i);
+			AcopFinding actual = read.get(i);
+			assertEquals(actual.getRuleId(), expected.getRuleId());
+			assertEquals(actual.getSeverity(), expected.getSeverity());
+			assertEquals(actual.getMessage(), expected.getMessage());
+			assertEquals(actual.getLocator(), expected.getLocator());
+			assertEquals(actual.getAttribute(), expected.getAttribute());
+			assertEquals(actual.getDetail(), expected.getDetail());
+			assertEquals(actual.getSourceOffset(), expected.getSourceOffset());
+			assertEquals(actual.getFramePath(), expected.getFramePath());
+			assertEquals(actual.isTimeout(), expected.isTimeout());
+		}
+		reloaded.close();
+	}
+
+	@Test
+	public void keepsCompleteRecordsOfTruncatedStore() throws IOException {
+		AuditResultCache cache = new AuditResultCache(10, storeFile);
+		cache.put("first", findings("first"));
+		cache.put("second", findings("second"));
+		cache.close();
+		RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+		file.setLength(file.length() - 3);
+		file.close();
+
+		AuditResultCache reloaded = new AuditResultCache(10, storeFile);
+		assertEquals(reloaded.size(), 1);
+		assertNotNull(reloaded.get("first"));
+		assertNull(reloaded.get("second"));
+		reloaded.put("third", findings("third"));
+		reloaded.close();
+
+		AuditResultCache repaired = new AuditResultCache(10, storeFile);
+		assertEquals(repaired.size(), 2, "the damaged record was dropped when the store was rewritten");
+		assertEquals(repaired.get("third").get(0).getDetail(), "third");
+		repaired.close();
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedEntry() throws IOException {
+		AuditResultCache cache = new AuditResultCache(2, storeFile);
+		cache.put("a", findings("a"));
+		cache.put("b", findings("b"));
+		assertNotNull(cache.get("a"));
+		cache.put("c", findings("c"));
+
+		assertEquals(cache.size(), 2);
+		assertNull(cache.get("b"), "b was used least recently");
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertEquals(cache.getHits(), 3);
+		assertEquals(cache.getMisses(), 1);
+		cache.close();
+
+		AuditResultCache reloaded = new AuditResultCache(2, storeFile);
+		assertEquals(reloaded.size(), 2);
+		assertNull(reloaded.get("b"));
+		reloaded.close();
+	}
+
+	@Test
+	public void compactsStoreOnceStaleRecordsOutnumberLiveOnes() throws IOException {
+		AuditResultCache cache = new AuditResultCache(3, storeFile);
+		for (int i = 0; i < 3; i++)
+			cache.put("page" + i, findings("page" + i));
+		long full = storeFile.length();
+
+		for (int i = 3; i < 300; i++) {
+			cache.put("page" + i, findings("page" + i));
+			assertTrue(storeFile.length() <= 3 * full, "store grew to " + storeFile.length() + " bytes");
+		}
+		for (int i = 0; i < 100; i++)
+			cache.put("page299", findings("page299"));
+		assertTrue(storeFile.length() <= 3 * full, "store grew to " + storeFile.length() + " bytes");
+		cache.close();
+
+		AuditResultCache reloaded = new AuditResultCache(3, storeFile);
+		assertEquals(reloaded.size(), 3);
+		assertNotNull(reloaded.get("page297"));
+		assertNotNull(reloaded.get("page298"));
+		assertNotNull(reloaded.get("page299"));
+		reloaded.close();
+	}
+
+	@Test
+	public void keepsEntriesInMemoryWithoutStore() {
+		AuditResultCache cache = new AuditResultCache(1);
+		cache.put("a", Collections.<AcopFinding> emptyList());
+
+		assertEquals(cache.get("a"), Collections.<AcopFinding> emptyList());
+		assertNull(cache.get("b"));
+	}
+
+	private static List<AcopFinding> findings(String detail) {
+		return Collections.singletonList(AcopFinding.elementError("1",
+				"Accessbility Rule 1 - Alternate Text Missing for Image - ", new ElementSelector("//img", "img"), 0, "alt",
+				detail));
+	}
+}
@@ -0,0 +1,31 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class FormLabelRuleTest {
+
+	@Test
+	public void acceptsLabelledControlsAndNamedButtons() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("forms-good.html"), BuiltInRules.FORMS);
+
+		assertEquals(findings.size(), 0, findings.toString());
+	}
+
+	@Test
+	public void reportsUnlabelledControlsAndEmptyText() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("forms-bad.html"), BuiltInRules.FORMS);
+
+		List<String> details = new ArrayList<String>();
+		for (AcopFinding finding : findings)
+			details.add(finding.getDetail());
+		assertEquals(details, Arrays.asList("legend", "label", "input type submit", "input type button", "button",
+				"input id email", "input id road", "textarea", "select"));
+		assertEquals(findings.get(5).getLocator(), "(//input | //select | //textarea | //label | //legend | //button)[4]");
+	}
+}
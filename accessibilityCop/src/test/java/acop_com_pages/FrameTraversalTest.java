@@ -0,0 +1,163 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.Test;
+
+public class FrameTraversalTest {
+
+	@Test
+	public void auditsEveryFrameDocument() {
+		HtmlUnitDriver driver = new HtmlUnitDriver(true);
+		try {
+			driver.get(TestPages.url("frames.html"));
+			ACopChecksV1 checks = new ACopChecksV1(driver);
+			checks.setFrameAuditing(true);
+			checks.runAcopChecks();
+
+			int inOffers = 0;
+			for (AcopFinding finding : checks.getFindings()) {
+				if (finding.getFramePath() != null) {
+					assertEquals(finding.getFramePath(), "(" + FrameTraversal.FRAMES_XPATH + ")[2]", finding.getMessage());
+					inOffers++;
+				}
+			}
+			assertEquals(inOffers, TestPages.audit("inaccessible.html").size());
+			assertEquals(driver.findElement(By.tagName("h1")).getText(), "Catalogue", "back in the top level document");
+		} finally {
+			driver.quit();
+		}
+	}
+
+	@Test
+	public void stopsWithoutTouchingDriverWhenFrameSwitchHangs() throws InterruptedException {
+		StuckDriver driver = new StuckDriver(1500);
+		try {
+			driver.get(TestPages.url("frames.html"));
+			ACopChecksV1 checks = new ACopChecksV1(driver);
+			checks.setFrameAuditing(true);
+			checks.setFrameLimits(300, 5);
+			checks.runAcopChecks();
+
+			List<AcopFinding> timeouts = TestPages.ofRule(checks.getFindings(), FrameTraversal.RULE_ID);
+			assertEquals(timeouts.size(), 1);
+			assertTrue(timeouts.get(0).isTimeout());
+			assertTrue(timeouts.get(0).getDetail().contains("[1] and the frames after it"), timeouts.get(0).getDetail());
+			for (AcopFinding finding : checks.getFindings())
+				assertEquals(finding.getFramePath(), null, "no frame was audited - " + finding.getMessage());
+
+			Thread.sleep(2000);
+			assertFalse(driver.usedWhileStuck, "driver was used while the frame switch hung");
+			assertEquals(driver.findElement(By.tagName("h1")).getText(), "Catalogue", "back in the top level document");
+		} finally {
+			driver.quit();
+		}
+	}
+
+	/**
+	 * HtmlUnitDriver whose first switch into a frame hangs, like a browser waiting on a
+	 * frame that never finishes loading, and that records calls made meanwhile
+	 */
+	private static class StuckDriver extends HtmlUnitDriver {
+
+		private final long stuckMillis;
+		private volatile boolean stuck = false;
+		private volatile boolean hung = false;
+		private volatile boolean usedWhileStuck = false;
+
+		StuckDriver(long stuckMillis) {
+			super(true);
+			this.stuckMillis = stuckMillis;
+		}
+
+		private void use() {
+			if (stuck)
+				usedWhileStuck = true;
+		}
+
+		@Override
+		public List<WebElement> findElements(By by) {
+			use();
+			return super.findElements(by);
+		}
+
+		@Override
+		public WebElement findElement(By by) {
+			use();
+			return super.findElement(by);
+		}
+
+		@Override
+		public Object executeScript(String script, Object... args) {
+			use();
+			return super.executeScript(script, args);
+		}
+
+		@Override
+		public String getPageSource() {
+			use();
+			return super.getPageSource();
+		}
+
+		@Override
+		public TargetLocator switchTo() {
+			use();
+			final TargetLocator target = super.switchTo();
+			return new TargetLocator() {
+				public WebDriver frame(int index) {
+					return target.frame(index);
+				}
+
+				public WebDriver frame(String nameOrId) {
+					return target.frame(nameOrId);
+				}
+
+				public WebDriver frame(WebElement frameElement) {
+					if (!hung) {
+						hung = true;
+						stuck = true;
+						try {
+							Thread.sleep(stuckMillis);
+						} catch (InterruptedException ex) {
+							// a browser call does not notice the interrupt either
+						}
+						stuck = false;
+					}
+					return target.frame(frameElement);
+				}
+
+				public WebDriver window(String nameOrHandle) {
+					return target.window(nameOrHandle);
+				}
+
+				public WebDriver defaultContent() {
+					return target.defaultContent();
+				}
+
+				public WebElement activeElement() {
+					return target.activeElement();
+				}
+
+				public Alert alert() {
+					return target.alert();
+				}
+			};
+		}
+
+		@Override
+		public Set<String> getWindowHandles() {
+			use();
+			return super.getWindowHandles();
+		}
+	}
+}
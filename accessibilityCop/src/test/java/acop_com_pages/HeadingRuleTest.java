@@ -0,0 +1,36 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class HeadingRuleTest {
+
+	@Test
+	public void acceptsNestedHeadingsAndBannersBeforeTheH1() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("headings-good.html"), BuiltInRules.HEADINGS);
+
+		assertEquals(findings.size(), 0, findings.toString());
+	}
+
+	@Test
+	public void reportsSkippedLevelsAndEmptyHeadings() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("headings-bad.html"), BuiltInRules.HEADINGS);
+
+		assertEquals(findings.size(), 3, findings.toString());
+		assertEquals(findings.get(0).getDetail(), "h3 at position 2 after h1 at position 1");
+		assertEquals(findings.get(1).getDetail(), "h2 at position 3");
+		assertEquals(findings.get(1).getMessage().contains("Heading text is missing"), true);
+		assertEquals(findings.get(2).getDetail(), "h4 at position 4 after h2 at position 3");
+	}
+
+	@Test
+	public void reportsMissingH1() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("headings-no-h1.html"), BuiltInRules.HEADINGS);
+
+		assertEquals(findings.size(), 1, findings.toString());
+		assertEquals(findings.get(0).getMessage(), "FAILURE Accessbility Rule 15 - Page must contain atleast one h1 element");
+	}
+}
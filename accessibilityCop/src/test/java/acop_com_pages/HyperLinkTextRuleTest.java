@@ -0,0 +1,36 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class HyperLinkTextRuleTest {
+
+	@Test
+	public void acceptsLinksWithTextAndSameTextForSameTarget() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("links-good.html"), BuiltInRules.HYPERLINKS);
+
+		assertEquals(findings.size(), 0, findings.toString());
+	}
+
+	@Test
+	public void reportsLinksWithoutVisibleTextAndSameTextForDifferentTargets() {
+		List<AcopFinding> findings = TestPages.ofRule(TestPages.audit("links-bad.html"), BuiltInRules.HYPERLINKS);
+
+		assertEquals(findings.size(), 3, findings.toString());
+		assertTrue(findings.get(0).getDetail().endsWith("more.html"), findings.get(0).getDetail());
+		assertTrue(findings.get(1).getDetail().endsWith("hidden.html"), findings.get(1).getDetail());
+		String duplicate = findings.get(2).getDetail();
+		assertTrue(duplicate.startsWith("'read more' - "), duplicate);
+		assertTrue(duplicate.contains("first.html, ") && duplicate.endsWith("second.html"), duplicate);
+		assertEquals(findings.get(2).getLocator(), "(//a)[3]", "reported at the first link with the text");
+	}
+
+	@Test
+	public void normalizesWhiteSpaceAndCase() {
+		assertEquals(BuiltInRules.HyperLinkTextRule.normalizeLinkText("  Read \n MORE "), "read more");
+	}
+}
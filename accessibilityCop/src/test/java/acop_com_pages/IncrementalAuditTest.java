@@ -0,0 +1,166 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * HtmlUnit has no MutationObserver, so the page gets a stand in whose records
+ * the test delivers itself after each DOM change, as a browser would
+ */
+public class IncrementalAuditTest {
+
+	private static final String OBSERVER_STUB =
+			"window.__observers = [];" +
+			"window.MutationObserver = function(callback) {" +
+			"  var observer = this, queue = [];" +
+			"  this.observe = function() { window.__observers.push(observer); };" +
+			"  this.disconnect = function() {" +
+			"    for (var i = 0; i < window.__observers.length; i++)" +
+			"      if (window.__observers[i] == observer) window.__observers.splice(i, 1);" +
+			"  };" +
+			"  this.takeRecords = function() { var taken = queue; queue = []; return taken; };" +
+			"  this.add = function(record) { queue.push(record); };" +
+			"};" +
+			"window.__notify = function(record) {" +
+			"  for (var i = 0; i < window.__observers.length; i++) window.__observers[i].add(record);" +
+			"};";
+
+	private SnapshotCountingDriver driver;
+	private JavascriptExecutor js;
+	private ACopChecksV1 checks;
+
+	@BeforeMethod
+	public void openGallery() {
+		driver = new SnapshotCountingDriver();
+		driver.get(TestPages.url("gallery.html"));
+		js = driver;
+		js.executeScript(OBSERVER_STUB);
+		checks = new ACopChecksV1(driver);
+		checks.setIncrementalMode(true);
+	}
+
+	@AfterMethod
+	public void quit() {
+		driver.quit();
+	}
+
+	@Test
+	public void rechecksAddedElement() {
+		List<String> before = run();
+		assertEquals(before.size(), 1, before.toString());
+		assertTrue(before.get(0).endsWith("one.png"), before.toString());
+
+		js.executeScript("var img = document.createElement('img'); img.setAttribute('src', 'three.png');" +
+				"document.getElementById('gallery').appendChild(img);" +
+				"window.__notify({type: 'childList', target: img.parentNode, addedNodes: [img], removedNodes: []});");
+		List<String> after = run();
+
+		assertEquals(after.size(), 2, after.toString());
+		assertTrue(after.get(1).endsWith("three.png"), after.toString());
+		AcopFinding added = checks.getFindings().get(1);
+		assertEquals(added.getLocator(), "//img", "incremental findings carry no element index");
+		assertEquals(sorted(after), sorted(fullAudit()));
+	}
+
+	@Test
+	public void dropsFindingsOfFixedAndRemovedElements() {
+		js.executeScript("var img = document.createElement('img'); img.setAttribute('src', 'three.png');" +
+				"document.getElementById('gallery').appendChild(img);");
+		assertEquals(run().size(), 2);
+
+		js.executeScript("var img = document.getElementById('first'); img.setAttribute('alt', 'One');" +
+				"window.__notify({type: 'attributes', target: img, addedNodes: [], removedNodes: []});");
+		List<String> fixed = run();
+		assertEquals(fixed.size(), 1, fixed.toString());
+		assertTrue(fixed.get(0).endsWith("three.png"), fixed.toString());
+
+		js.executeScript("var gallery = document.getElementById('gallery'), img = gallery.lastChild;" +
+				"gallery.removeChild(img);" +
+				"window.__notify({type: 'childList', target: gallery, addedNodes: [], removedNodes: [img]});");
+		assertEquals(run(), Collections.<String>emptyList());
+		assertEquals(fullAudit(), Collections.<String>emptyList());
+	}
+
+	@Test
+	public void keepsFindingsWhenNothingChanged() {
+		List<String> first = run();
+		List<String> second = run();
+
+		assertEquals(second, first);
+		assertEquals(checks.getFindings().get(0).getLocator(), "(//img)[1]", "the first audit is a full audit");
+	}
+
+	/**
+	 * Re-running the rules that are not incremental (title, links, headings, forms)
+	 * takes a snapshot of the whole page - one more walk of the document, as long
+	 * as a full capture on a large page. Changes to elements only the incremental
+	 * rules select do without it.
+	 */
+	@Test
+	public void takesWholePageSnapshotOnlyForChangesOfTheOtherRules() {
+		run();
+		js.executeScript("var img = document.getElementById('first'); img.setAttribute('alt', 'One');" +
+				"window.__notify({type: 'attributes', target: img, addedNodes: [], removedNodes: []});");
+		List<String> fixed = run();
+
+		assertEquals(driver.snapshots, 0, "an image change does not concern the other rules");
+		assertEquals(fixed, fullAudit());
+
+		js.executeScript("var h3 = document.createElement('h3'); h3.appendChild(document.createTextNode('Details'));" +
+				"document.body.appendChild(h3);" +
+				"window.__notify({type: 'childList', target: document.body, addedNodes: [h3], removedNodes: []});");
+		List<String> skipped = run();
+
+		assertEquals(driver.snapshots, 1, "a new heading is checked by the heading rule");
+		assertTrue(skipped.size() > fixed.size(), skipped.toString());
+		assertEquals(sorted(skipped), sorted(fullAudit()));
+
+		js.executeScript("var h1 = document.getElementsByTagName('h1')[0]; h1.firstChild.data = 'Photos';" +
+				"window.__notify({type: 'characterData', target: h1.firstChild, addedNodes: [], removedNodes: []});");
+		run();
+		assertEquals(driver.snapshots, 2, "so is a changed heading text");
+	}
+
+	private List<String> run() {
+		return new ArrayList<String>(checks.runAcopChecks());
+	}
+
+	private List<String> fullAudit() {
+		return new ArrayList<String>(new ACopChecksV1(driver).runAcopChecks());
+	}
+
+	private static List<String> sorted(List<String> messages) {
+		List<String> copy = new ArrayList<String>(messages);
+		Collections.sort(copy);
+		return copy;
+	}
+
+	/**
+	 * Counts the whole page snapshots taken through the driver
+	 */
+	private static class SnapshotCountingDriver extends HtmlUnitDriver {
+
+		private int snapshots = 0;
+
+		SnapshotCountingDriver() {
+			super(true);
+		}
+
+		@Override
+		public Object executeScript(String script, Object... args) {
+			if (PageSnapshot.CAPTURE_SCRIPT.equals(script))
+				snapshots++;
+			return super.executeScript(script, args);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class PageSourceScannerTest {
+
+	@Test
+	public void findsPatternThatEndsInsideAnother() {
+		PageSourceScanner.Result result = new PageSourceScanner("frame", "iframe").scan("<iframe src=x><frame>");
+
+		assertEquals(result.getOffsets("iframe"), new int[] { 1 });
+		assertEquals(result.getOffsets("frame"), new int[] { 2, 15 });
+	}
+
+	@Test
+	public void findsOverlappingMatchesOfOnePattern() {
+		PageSourceScanner.Result result = new PageSourceScanner("aa", "aaa").scan("aaaa");
+
+		assertEquals(result.getOffsets("aa"), new int[] { 0, 1, 2 });
+		assertEquals(result.getOffsets("aaa"), new int[] { 0, 1 });
+	}
+
+	@Test
+	public void followsFailureLinksAcrossPatterns() {
+		PageSourceScanner.Result result = new PageSourceScanner("he", "she", "his", "hers").scan("ushers");
+
+		assertEquals(result.getOffsets("she"), new int[] { 1 });
+		assertEquals(result.getOffsets("he"), new int[] { 2 });
+		assertEquals(result.getOffsets("hers"), new int[] { 2 });
+		assertFalse(result.contains("his"));
+		assertEquals(result.firstOffset("his"), -1);
+	}
+
+	@Test
+	public void restartsAfterNonAsciiCharacters() {
+		PageSourceScanner.Result result = new PageSourceScanner("<b>").scan("<éb><b> <b>");
+
+		assertEquals(result.getOffsets("<b>"), new int[] { 4, 8 });
+		assertEquals(result.count("<b>"), 2);
+	}
+
+	@Test
+	public void matchesBuiltInPatternsLikeIndexOf() {
+		String[] patterns = { "DOCTYPE", "frame", "iframe", "<b>", "<i>", "<center>", "<font>", "<u>", "<blink>",
+				"<marquee>" };
+		String[] pieces = { "<", ">", "b", "i", "u", "frame", "iframe", "<b", "<center", "DOC", "TYPE", " ", "font",
+				"<marquee", "<blink>", "é" };
+		Random random = new Random(42);
+		StringBuilder source = new StringBuilder();
+		for (int i = 0; i < 5000; i++)
+			source.append(pieces[random.nextInt(pieces.length)]);
+
+		PageSourceScanner.Result result = new PageSourceScanner(patterns).scan(source);
+
+		for (String pattern : patterns) {
+			List<Integer> expected = new ArrayList<Integer>();
+			for (int at = source.indexOf(pattern); at >= 0; at = source.indexOf(pattern, at + 1))
+				expected.add(at);
+			int[] offsets = result.getOffsets(pattern);
+			assertEquals(offsets.length, expected.size(), pattern);
+			for (int i = 0; i < offsets.length; i++)
+				assertEquals(offsets[i], expected.get(i).intValue(), pattern);
+			assertTrue(expected.isEmpty() || result.contains(pattern), pattern);
+		}
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void rejectsNonAsciiPatterns() {
+		new PageSourceScanner("café");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void rejectsPatternsThatWereNotScanned() {
+		new PageSourceScanner("<b>").scan("<b>").count("<i>");
+	}
+}
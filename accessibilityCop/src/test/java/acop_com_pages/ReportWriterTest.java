@@ -0,0 +1,251 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+public class ReportWriterTest {
+
+	private static final String PAGE = "http://example.com/a?b=\"c\"&d=<e>";
+	private static final String FAILED_PAGE = "http://example.com/failed";
+
+	private static final List<AcopFinding> FINDINGS = Arrays.asList(
+			AcopFinding.pageError("4", " FAILURE Accessbility Rule 4 - \"quoted\" <title> & \\ back\tslash"),
+			AcopFinding.elementError("1", "FAILURE Accessbility Rule 1 - Alternate Text Missing for Image - ",
+					new ElementSelector("//img", "img"), 2, "alt", "line\nbreak   é \u0001"),
+			AcopFinding.sourceError("9", "FAILURE Accessbility Rule 9 - ", "<b>", 42).inFrame("(//frame | //iframe)[1]"),
+			AcopFinding.timeout("7", false, "Audit time budget of 1 ms used up"));
+
+	@Test
+	public void writesOneJsonObjectPerLine() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeReport(new JsonLinesReportWriter(Channels.newChannel(out)));
+
+		String[] lines = out.toString("UTF-8").split("\n");
+		assertEquals(lines.length, FINDINGS.size() + 1);
+		for (int i = 0; i < FINDINGS.size(); i++) {
+			JSONObject line = new JSONObject(lines[i]);
+			AcopFinding finding = FINDINGS.get(i);
+			assertEquals(line.getString("url"), PAGE);
+			assertEquals(line.getString("ruleId"), finding.getRuleId());
+			assertEquals(line.getString("severity"), finding.getSeverity().name());
+			assertEquals(line.getString("message"), finding.getMessage());
+		}
+		JSONObject image = new JSONObject(lines[1]);
+		assertEquals(image.getString("locator"), "(//img)[3]");
+		assertEquals(image.getString("attribute"), "alt");
+		assertFalse(new JSONObject(lines[0]).has("locator"));
+		assertEquals(new JSONObject(lines[2]).getInt("sourceOffset"), 42);
+		assertEquals(new JSONObject(lines[2]).getString("framePath"), "(//frame | //iframe)[1]");
+		JSONObject failed = new JSONObject(lines[4]);
+		assertEquals(failed.getString("url"), FAILED_PAGE);
+		assertEquals(failed.getString("status"), "FAILED");
+		assertTrue(failed.getString("error").contains("browser crashed"));
+	}
+
+	@Test
+	public void writesWellFormedJUnitXml() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JUnitXmlReportWriter report = new JUnitXmlReportWriter(Channels.newChannel(out));
+		writeReport(report);
+
+		Document xml = parse(out);
+		NodeList suites = xml.getElementsByTagName("testsuite");
+		assertEquals(suites.getLength(), 2);
+		Element page = (Element) suites.item(0);
+		assertEquals(page.getAttribute("name"), PAGE);
+		NodeList failures = page.getElementsByTagName("failure");
+		assertEquals(failures.getLength(), FINDINGS.size());
+		assertEquals(((Element) failures.item(0)).getAttribute("message"), FINDINGS.get(0).getMessage());
+		assertEquals(((Element) failures.item(1)).getAttribute("message"),
+				"FAILURE Accessbility Rule 1 - Alternate Text Missing for Image - line\nbreak   é ",
+				"characters xml does not allow are dropped");
+		assertEquals(((Element) failures.item(3)).getAttribute("type"), "WARNING");
+		Element failed = (Element) suites.item(1);
+		assertEquals(failed.getElementsByTagName("error").getLength(), 1);
+		assertEquals(((Element) failed.getElementsByTagName("error").item(0)).getAttribute("type"), "FAILED");
+	}
+
+	@Test
+	public void writesValidSarifJson() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeReport(new SarifReportWriter(Channels.newChannel(out), AcopRuleRegistry.createDefault()));
+
+		JSONObject sarif = new JSONObject(out.toString("UTF-8"));
+		assertEquals(sarif.getString("version"), "2.1.0");
+		JSONObject run = sarif.getJSONArray("runs").getJSONObject(0);
+		JSONArray rules = run.getJSONObject("tool").getJSONObject("driver").getJSONArray("rules");
+		assertEquals(rules.length(), AcopRuleRegistry.createDefault().getEnabledRules().size());
+		JSONArray results = run.getJSONArray("results");
+		assertEquals(results.length(), FINDINGS.size());
+		JSONObject image = results.getJSONObject(1);
+		assertEquals(image.getString("ruleId"), "1");
+		assertEquals(image.getString("level"), "error");
+		JSONObject location = image.getJSONArray("locations").getJSONObject(0);
+		assertEquals(location.getJSONObject("physicalLocation").getJSONObject("artifactLocation").getString("uri"), PAGE);
+		assertEquals(location.getJSONArray("logicalLocations").getJSONObject(0).getString("fullyQualifiedName"),
+				"(//img)[3]");
+		JSONObject source = results.getJSONObject(2);
+		assertEquals(source.getJSONArray("locations").getJSONObject(0).getJSONObject("physicalLocation")
+				.getJSONObject("region").getInt("charOffset"), 42);
+		assertEquals(results.getJSONObject(3).getString("level"), "warning");
+		JSONObject invocation = run.getJSONArray("invocations").getJSONObject(0);
+		assertFalse(invocation.getBoolean("executionSuccessful"));
+	}
+
+	@Test
+	public void publishesOnlyTheFindingsOfEachRun() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonLinesReportWriter report = new JsonLinesReportWriter(Channels.newChannel(out));
+		WebDriver driver = TestPages.open("inaccessible.html");
+		try {
+			ACopChecksV1 checks = new ACopChecksV1(driver);
+			checks.setFindingListener(report);
+			checks.runAcopChecks();
+			checks.runAcopChecks();
+			int findings = TestPages.audit("inaccessible.html").size();
+			assertEquals(checks.getFindings().size(), 2 * findings, "acopErrorList keeps the findings of both runs");
+
+			checks.setKeepFindings(false);
+			checks.runAcopChecks();
+			report.close();
+
+			assertEquals(checks.getFindings().size(), findings, "only the findings of the last run are kept");
+			assertEquals(out.toString("UTF-8").split("\n").length, 3 * findings, "every finding is written once");
+		} finally {
+			driver.quit();
+		}
+	}
+
+	@Test
+	public void handsEveryFindingOverWhenItIsRaised() throws Exception {
+		WebDriver driver = TestPages.open("inaccessible.html");
+		try {
+			final ACopChecksV1 checks = new ACopChecksV1(driver);
+			final List<Integer> kept = new ArrayList<Integer>();
+			checks.setKeepFindings(false);
+			checks.setFindingListener(new FindingListener() {
+				public void auditStarted(String url) {
+				}
+
+				public void findingRaised(String url, AcopFinding finding) {
+					kept.add(checks.getFindings().size());
+				}
+
+				public void auditFinished(String url) {
+				}
+			});
+			checks.runAcopChecks();
+
+			assertFalse(kept.isEmpty());
+			for (int i = 0; i < kept.size(); i++)
+				assertEquals(kept.get(i).intValue(), i + 1, "finding " + (i + 1) + " is handed over before the next is raised");
+		} finally {
+			driver.quit();
+		}
+	}
+
+	@Test
+	public void writesFindingsBeforeThePageIsFinished() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JUnitXmlReportWriter report = new JUnitXmlReportWriter(Channels.newChannel(out));
+		report.auditStarted(PAGE);
+		int findings = 0;
+		while (out.size() == 0 && findings < 10000) {
+			report.findingRaised(PAGE, FINDINGS.get(findings % FINDINGS.size()));
+			findings++;
+		}
+		assertTrue(out.size() > 0, "the buffer was written out while the page was open");
+		report.auditFinished(PAGE);
+		report.close();
+
+		NodeList suites = parse(out).getElementsByTagName("testsuite");
+		assertEquals(suites.getLength(), 1);
+		assertEquals(((Element) suites.item(0)).getElementsByTagName("failure").getLength(), findings);
+	}
+
+	@Test
+	public void keepsPagesOfParallelAuditsApart() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final JUnitXmlReportWriter report = new JUnitXmlReportWriter(Channels.newChannel(out));
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			final String page = t % 2 == 0 ? "inaccessible.html" : "accessible.html";
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					WebDriver driver = TestPages.open(page);
+					try {
+						for (int i = 0; i < 3; i++) {
+							ACopChecksV1 checks = new ACopChecksV1(driver);
+							checks.setFindingListener(report);
+							checks.runAcopChecks();
+						}
+					} catch (Throwable ex) {
+						errors.add(ex);
+					} finally {
+						driver.quit();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		report.close();
+		assertEquals(errors, Collections.emptyList());
+
+		int inaccessibleFindings = TestPages.audit("inaccessible.html").size();
+		NodeList suites = parse(out).getElementsByTagName("testsuite");
+		assertEquals(suites.getLength(), 12);
+		for (int i = 0; i < suites.getLength(); i++) {
+			Element suite = (Element) suites.item(i);
+			String url = suite.getAttribute("name");
+			NodeList testCases = suite.getElementsByTagName("testcase");
+			for (int c = 0; c < testCases.getLength(); c++)
+				assertEquals(((Element) testCases.item(c)).getAttribute("classname"), url);
+			int failures = suite.getElementsByTagName("failure").getLength();
+			if (url.endsWith("inaccessible.html"))
+				assertEquals(failures, inaccessibleFindings, url);
+			else
+				assertEquals(failures, 0, url);
+		}
+	}
+
+	/**
+	 * Writes FINDINGS for PAGE as a FindingListener and a failed page as an AuditListener
+	 */
+	private static void writeReport(ReportWriter report) throws IOException {
+		report.auditStarted(PAGE);
+		for (AcopFinding finding : FINDINGS)
+			report.findingRaised(PAGE, finding);
+		report.auditFinished(PAGE);
+		report.onResult(new AuditResult(FAILED_PAGE, AuditResult.Status.FAILED, null,
+				new IllegalStateException("browser crashed"), 10));
+		report.close();
+	}
+
+	private static Document parse(ByteArrayOutputStream out) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+	}
+}
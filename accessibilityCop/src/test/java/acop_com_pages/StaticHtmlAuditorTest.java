@@ -0,0 +1,83 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.Test;
+
+public class StaticHtmlAuditorTest {
+
+	@Test
+	public void findsWhatSnapshotAuditFindsOnEveryTestPage() throws Exception {
+		File[] pages = new File(new URI(TestPages.url("accessible.html"))).getParentFile().listFiles();
+		assertTrue(pages.length > 5);
+		StaticHtmlAuditor auditor = new StaticHtmlAuditor();
+		for (File page : pages) {
+			HtmlUnitDriver driver = TestPages.open(page.getName());
+			try {
+				ACopChecksV1 checks = new ACopChecksV1(driver);
+				checks.setSnapshotMode(true);
+				checks.runAcopChecks();
+
+				assertEquals(describe(auditor.audit(page)), describe(checks.getFindings()), page.getName());
+			} finally {
+				driver.quit();
+			}
+		}
+	}
+
+	@Test
+	public void leavesOutTextOfHiddenElements() throws Exception {
+		StaticHtmlAuditor auditor = new StaticHtmlAuditor();
+		String html = "<!DOCTYPE html><html lang=\"en\"><head><title>Links</title></head><body><h1>Links</h1>"
+				+ "<a href=\"a.html\"><span hidden>A</span></a>"
+				+ "<a href=\"b.html\"><span style=\"color: red; DISPLAY : none !important\">B</span></a>"
+				+ "<a href=\"c.html\" style=\"visibility:hidden\">C</a>"
+				+ "<a href=\"d.html\" style=\"visibility:hidden\"><span style=\"visibility: visible\">D</span></a>"
+				+ "<a href=\"e.html\"><script>var e = 1;</script></a>"
+				+ "</body></html>";
+
+		List<String> details = new ArrayList<String>();
+		for (AcopFinding finding : TestPages.ofRule(auditor.audit(html, null), BuiltInRules.HYPERLINKS))
+			details.add(finding.getDetail());
+
+		assertEquals(details.toString(), "[a.html, b.html, c.html, e.html]");
+	}
+
+	@Test
+	public void separatesWordsOfBlockElements() throws Exception {
+		StaticHtmlAuditor auditor = new StaticHtmlAuditor();
+		String html = "<!DOCTYPE html><html lang=\"en\"><head><title>Links</title></head><body><h1>Links</h1>"
+				+ "<a href=\"a.html\"><div>Read</div>more</a><a href=\"b.html\">read more</a></body></html>";
+
+		List<AcopFinding> findings = TestPages.ofRule(auditor.audit(html, null), BuiltInRules.HYPERLINKS);
+
+		assertEquals(findings.size(), 1, findings.toString());
+		assertEquals(findings.get(0).getDetail(), "'read more' - a.html, b.html");
+	}
+
+	/**
+	 * Rule, locator and detail of every finding; source offsets of the page source
+	 * rules are left out, they refer to the file here and to the browser's markup there.
+	 * Rule 8 is left out too: HtmlUnit's page source is an xml serialization of the
+	 * DOM without the doctype, so it reports every page with frames.
+	 */
+	private static List<String> describe(List<AcopFinding> findings) {
+		List<String> described = new ArrayList<String>();
+		for (AcopFinding finding : findings) {
+			if (BuiltInRules.DOCTYPE.equals(finding.getRuleId()))
+				continue;
+			String detail = finding.getDetail();
+			if (detail != null && detail.startsWith("file:"))
+				detail = detail.substring(detail.lastIndexOf('/') + 1);
+			described.add(finding.getRuleId() + " " + finding.getLocator() + " " + detail);
+		}
+		return described;
+	}
+}
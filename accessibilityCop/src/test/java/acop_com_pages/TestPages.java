@@ -0,0 +1,87 @@
+package acop_com_pages;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * Html fixtures of the tests (src/test/resources/pages) and the offline
+ * HtmlUnitDriver sessions they are audited with
+ *
+ */
+final class TestPages {
+
+	private TestPages() {
+	}
+
+	/**
+	 * @return file: url of the fixture
+	 */
+	static String url(String name) {
+		URL resource = TestPages.class.getResource("/pages/" + name);
+		if (resource == null)
+			throw new IllegalArgumentException("No test page " + name);
+		return resource.toExternalForm();
+	}
+
+	/**
+	 * @return a javascript enabled HtmlUnitDriver with the fixture loaded
+	 */
+	static HtmlUnitDriver open(String name) {
+		HtmlUnitDriver driver = new HtmlUnitDriver(true);
+		driver.get(url(name));
+		return driver;
+	}
+
+	/**
+	 * @return ids of the rules that raised the findings, in order
+	 */
+	static List<String> ruleIds(List<AcopFinding> findings) {
+		List<String> ids = new ArrayList<String>();
+		for (AcopFinding finding : findings)
+			ids.add(finding.getRuleId());
+		return ids;
+	}
+
+	/**
+	 * @return findings of the given rule
+	 */
+	static List<AcopFinding> ofRule(List<AcopFinding> findings, String ruleId) {
+		List<AcopFinding> found = new ArrayList<AcopFinding>();
+		for (AcopFinding finding : findings) {
+			if (ruleId.equals(finding.getRuleId()))
+				found.add(finding);
+		}
+		return found;
+	}
+
+	/**
+	 * Audits the fixture in live, batched and snapshot mode and returns the findings
+	 * of the live run after checking that all modes agree
+	 */
+	static List<AcopFinding> audit(String name) {
+		WebDriver driver = open(name);
+		try {
+			List<String> expected = null;
+			List<AcopFinding> live = null;
+			for (int mode = 0; mode < 3; mode++) {
+				ACopChecksV1 checks = new ACopChecksV1(driver);
+				checks.setBatchedQueries(mode != 0);
+				checks.setSnapshotMode(mode == 2);
+				List<String> messages = new ArrayList<String>(checks.runAcopChecks());
+				if (expected == null) {
+					expected = messages;
+					live = new ArrayList<AcopFinding>(checks.getFindings());
+				} else if (!expected.equals(messages)) {
+					throw new AssertionError("Modes disagree on " + name + " - " + expected + " and " + messages);
+				}
+			}
+			return live;
+		} finally {
+			driver.quit();
+		}
+	}
+}
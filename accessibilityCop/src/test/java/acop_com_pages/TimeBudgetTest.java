@@ -0,0 +1,114 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TimeBudgetTest {
+
+	private HtmlUnitDriver driver;
+
+	@BeforeMethod
+	public void openPage() {
+		driver = TestPages.open("inaccessible.html");
+	}
+
+	@AfterMethod
+	public void quit() {
+		driver.quit();
+	}
+
+	@Test
+	public void stopsSlowRuleAndKeepsWhatItFound() {
+		List<String> unbudgeted = new ArrayList<String>(new ACopChecksV1(driver).runAcopChecks());
+		ACopChecksV1 checks = new ACopChecksV1(driver);
+		checks.getRuleRegistry().register(new SlowRule());
+		checks.setTimeBudgets(0, 200);
+
+		long start = System.currentTimeMillis();
+		checks.runAcopChecks();
+		long took = System.currentTimeMillis() - start;
+
+		List<AcopFinding> slow = TestPages.ofRule(checks.getFindings(), SlowRule.ID);
+		assertEquals(slow.size(), 2, slow.toString());
+		assertEquals(slow.get(0).getDetail(), "found before the budget ran out");
+		assertTrue(slow.get(1).isTimeout());
+		assertTrue(slow.get(1).getMessage().contains("check stopped"), slow.get(1).getMessage());
+		assertTrue(took < SlowRule.MAX_MILLIS, "audit took " + took + " ms");
+
+		List<String> others = new ArrayList<String>();
+		for (AcopFinding finding : checks.getFindings()) {
+			if (!SlowRule.ID.equals(finding.getRuleId()))
+				others.add(finding.getMessage());
+		}
+		assertEquals(others, unbudgeted, "the other rules are complete");
+	}
+
+	@Test
+	public void returnsPartialResultWhenAuditBudgetRunsOut() {
+		AuditResultCache cache = new AuditResultCache(10);
+		ACopChecksV1 checks = new ACopChecksV1(driver);
+		checks.getRuleRegistry().register(new SlowRule());
+		checks.setResultCache(cache);
+		checks.setTimeBudgets(300, 0);
+
+		checks.runAcopChecks();
+
+		boolean stopped = false;
+		boolean notRun = false;
+		for (AcopFinding finding : checks.getFindings()) {
+			if (finding.isTimeout()) {
+				stopped |= finding.getMessage().contains("check stopped");
+				notRun |= finding.getMessage().contains("check not run");
+			}
+		}
+		assertTrue(stopped, "slow rule was stopped - " + checks.getFindings());
+		assertTrue(notRun, "rules after the slow rule were not run - " + checks.getFindings());
+		assertFalse(TestPages.ofRule(checks.getFindings(), SlowRule.ID).isEmpty());
+		assertEquals(cache.size(), 0, "partial results are not cached");
+
+		ACopChecksV1 unbudgeted = new ACopChecksV1(driver);
+		unbudgeted.getRuleRegistry().register(new SlowRule());
+		unbudgeted.setResultCache(cache);
+		unbudgeted.runAcopChecks();
+		for (AcopFinding finding : unbudgeted.getFindings())
+			assertFalse(finding.isTimeout(), finding.getMessage());
+		assertEquals(cache.size(), 1);
+	}
+
+	/**
+	 * Cheapest rule that reports a finding, then works until a budget stops it
+	 */
+	private static class SlowRule extends AbstractAcopRule {
+
+		static final String ID = "slow";
+		static final long MAX_MILLIS = 1500;
+
+		SlowRule() {
+			super(ID, "Rule that checks the deadline while it works", 0);
+		}
+
+		public void check(AuditContext context) {
+			context.report(new AcopFinding(ID, AcopFinding.Severity.ERROR, "Slow rule - ", null, -1, null,
+					"found before the budget ran out", -1));
+			long end = System.currentTimeMillis() + MAX_MILLIS;
+			while (System.currentTimeMillis() < end) {
+				context.checkDeadline();
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+}
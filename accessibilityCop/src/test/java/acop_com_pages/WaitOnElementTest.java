@@ -0,0 +1,55 @@
+package acop_com_pages;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("deprecation")
+public class WaitOnElementTest {
+
+	private HtmlUnitDriver driver;
+	private ACopChecksV1 checks;
+
+	@BeforeMethod
+	public void openPage() {
+		driver = TestPages.open("accessible.html");
+		checks = new ACopChecksV1(driver);
+		checks.setPresenceRetries(0, 50);
+		checks.setPresenceTimeout(600);
+	}
+
+	@AfterMethod
+	public void quit() {
+		driver.quit();
+	}
+
+	@Test
+	public void returnsNullOnceThePresenceTimeoutIsUp() {
+		long start = System.currentTimeMillis();
+		assertNull(checks.waitOnXPath("//marquee"));
+		long took = System.currentTimeMillis() - start;
+
+		assertTrue(took >= 500 && took < 2000, "waited " + took + " ms");
+	}
+
+	@Test
+	public void findsElementThatAppearsWhileWaiting() {
+		driver.executeScript("setTimeout(function() {" +
+				"  var late = document.createElement('p'); late.id = 'late'; document.body.appendChild(late);" +
+				"}, 200);");
+
+		assertEquals(checks.waitOnElement(By.id("late"), 5, null).getTagName(), "p");
+	}
+
+	@Test(expectedExceptions = InvalidSelectorException.class)
+	public void throwsOtherWebDriverErrors() {
+		checks.waitOnXPath("//[");
+	}
+}
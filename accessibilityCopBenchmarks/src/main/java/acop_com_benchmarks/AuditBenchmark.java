@@ -0,0 +1,64 @@
+package acop_com_benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acop_com_pages.ACopChecksV1;
+import acop_com_pages.AcopFinding;
+
+/**
+ * End to end latency of runAcopChecks() with all rules on a synthetic page
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.apache.commons.logging.Log=acop_com_benchmarks.BenchmarkLog")
+public class AuditBenchmark {
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int elements;
+
+	@Param({ "live", "snapshot" })
+	public String mode;
+
+	@Param({ "info" })
+	public String logLevel;
+
+	private BenchmarkPage page;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		BenchmarkLog.setLevel(logLevel);
+		page = BenchmarkPage.load(elements);
+	}
+
+	@TearDown(Level.Trial)
+	public void close() {
+		page.close();
+	}
+
+	@Benchmark
+	public List<AcopFinding> runAcopChecks() {
+		ACopChecksV1 checks = page.createChecks(null, "snapshot".equals(mode), false);
+		checks.runAcopChecks();
+		return checks.getFindings();
+	}
+}
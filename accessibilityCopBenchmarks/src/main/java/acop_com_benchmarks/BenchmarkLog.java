@@ -0,0 +1,123 @@
+package acop_com_benchmarks;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * commons-logging Log for benchmark runs - honours a configurable level, so guarded
+ * and unguarded log statements cost what they cost in production, but discards
+ * the output instead of flooding the JMH console. Selected with
+ * -Dorg.apache.commons.logging.Log=acop_com_benchmarks.BenchmarkLog
+ *
+ */
+public class BenchmarkLog implements Log {
+
+	private static final int TRACE = 0;
+	private static final int DEBUG = 1;
+	private static final int INFO = 2;
+	private static final int WARN = 3;
+	private static final int ERROR = 4;
+	private static final int OFF = 5;
+
+	private static volatile int level = INFO;
+
+	/** keeps the JIT from dropping the message strings */
+	private static volatile long consumed = 0;
+
+	/**
+	 * commons-logging creates loggers with their name
+	 */
+	public BenchmarkLog(String name) {
+	}
+
+	/**
+	 * @param name
+	 *            trace, debug, info, warn, error or off
+	 */
+	public static void setLevel(String name) {
+		String[] names = { "trace", "debug", "info", "warn", "error", "off" };
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equalsIgnoreCase(name)) {
+				level = i;
+				return;
+			}
+		}
+		throw new IllegalArgumentException("Unknown log level " + name);
+	}
+
+	private static void log(int messageLevel, Object message) {
+		if (messageLevel >= level)
+			consumed += String.valueOf(message).length();
+	}
+
+	public boolean isTraceEnabled() {
+		return level <= TRACE;
+	}
+
+	public boolean isDebugEnabled() {
+		return level <= DEBUG;
+	}
+
+	public boolean isInfoEnabled() {
+		return level <= INFO;
+	}
+
+	public boolean isWarnEnabled() {
+		return level <= WARN;
+	}
+
+	public boolean isErrorEnabled() {
+		return level <= ERROR;
+	}
+
+	public boolean isFatalEnabled() {
+		return level < OFF;
+	}
+
+	public void trace(Object message) {
+		log(TRACE, message);
+	}
+
+	public void trace(Object message, Throwable t) {
+		log(TRACE, message);
+	}
+
+	public void debug(Object message) {
+		log(DEBUG, message);
+	}
+
+	public void debug(Object message, Throwable t) {
+		log(DEBUG, message);
+	}
+
+	public void info(Object message) {
+		log(INFO, message);
+	}
+
+	public void info(Object message, Throwable t) {
+		log(INFO, message);
+	}
+
+	public void warn(Object message) {
+		log(WARN, message);
+	}
+
+	public void warn(Object message, Throwable t) {
+		log(WARN, message);
+	}
+
+	public void error(Object message) {
+		log(ERROR, message);
+	}
+
+	public void error(Object message, Throwable t) {
+		log(ERROR, message);
+	}
+
+	public void fatal(Object message) {
+		log(OFF - 1, message);
+	}
+
+	public void fatal(Object message, Throwable t) {
+		log(OFF - 1, message);
+	}
+}
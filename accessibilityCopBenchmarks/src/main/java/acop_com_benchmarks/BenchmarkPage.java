@@ -0,0 +1,77 @@
+package acop_com_benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import acop_com_pages.ACopChecksV1;
+import acop_com_pages.AcopRuleRegistry;
+import acop_com_pages.WebDriverCallCounter;
+
+/**
+ * A synthetic page loaded from a temporary directory into an HtmlUnitDriver with
+ * javascript enabled - no network access is needed.
+ *
+ */
+class BenchmarkPage {
+
+	/** rule ids in the order of the built in rules */
+	static final String[] RULES = { "1", "2", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16" };
+
+	private final File directory;
+	private final File page;
+	private final HtmlUnitDriver driver;
+	private final WebDriverCallCounter counter = new WebDriverCallCounter();
+	private final WebDriver countingDriver;
+
+	private BenchmarkPage(File directory, File page) {
+		this.directory = directory;
+		this.page = page;
+		this.driver = new HtmlUnitDriver(true);
+		this.countingDriver = counter.wrap(driver);
+		driver.get(page.toURI().toString());
+	}
+
+	/**
+	 * @param elements
+	 *            number of elements of the generated page
+	 */
+	static BenchmarkPage load(int elements) throws IOException {
+		File directory = File.createTempFile("acop-bench", "");
+		if (!directory.delete() || !directory.mkdir())
+			throw new IOException("Could not create directory " + directory);
+		return new BenchmarkPage(directory, new SyntheticPage(elements).write(directory));
+	}
+
+	/**
+	 * @param rule
+	 *            id of the only rule to run, null to run all rules
+	 * @param snapshotMode
+	 *            see ACopChecksV1#setSnapshotMode(boolean)
+	 * @param counted
+	 *            true to run on the call counting driver
+	 */
+	ACopChecksV1 createChecks(String rule, boolean snapshotMode, boolean counted) {
+		ACopChecksV1 checks = new ACopChecksV1(counted ? countingDriver : driver);
+		checks.setSnapshotMode(snapshotMode);
+		if (rule != null) {
+			AcopRuleRegistry registry = new AcopRuleRegistry();
+			registry.register(checks.getRuleRegistry().getRule(rule));
+			checks.setRuleRegistry(registry);
+		}
+		return checks;
+	}
+
+	WebDriverCallCounter getCounter() {
+		return counter;
+	}
+
+	void close() {
+		driver.quit();
+		page.delete();
+		new File(directory, SyntheticPage.FRAME_PAGE).delete();
+		directory.delete();
+	}
+}
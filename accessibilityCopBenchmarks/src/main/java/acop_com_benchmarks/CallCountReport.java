@@ -0,0 +1,49 @@
+package acop_com_benchmarks;
+
+import java.io.IOException;
+
+import acop_com_pages.ACopChecksV1;
+
+/**
+ * Prints the number of webdriver calls every rule makes on synthetic pages, in
+ * live and snapshot mode. Call counts do not vary between runs, so a single run
+ * per rule is enough; with a remote browser each call is one round trip.
+ *
+ * 	java -cp target/benchmarks.jar acop_com_benchmarks.CallCountReport [elements ...]
+ *
+ */
+public class CallCountReport {
+
+	private static final String[] MODES = { "live", "snapshot" };
+
+	public static void main(String[] args) throws IOException {
+		if (System.getProperty("org.apache.commons.logging.Log") == null)
+			System.setProperty("org.apache.commons.logging.Log", BenchmarkLog.class.getName());
+		String[] sizes = args.length > 0 ? args : new String[] { "100", "1000", "10000" };
+
+		System.out.println(String.format("%-9s %-9s %-5s %9s %9s %9s", "elements", "mode", "rule", "calls",
+				"findings", "ms"));
+		for (String size : sizes) {
+			BenchmarkPage page = BenchmarkPage.load(Integer.parseInt(size));
+			try {
+				for (String mode : MODES) {
+					for (String rule : BenchmarkPage.RULES)
+						report(page, size, mode, rule);
+					report(page, size, mode, null);
+				}
+			} finally {
+				page.close();
+			}
+		}
+	}
+
+	private static void report(BenchmarkPage page, String size, String mode, String rule) {
+		ACopChecksV1 checks = page.createChecks(rule, "snapshot".equals(mode), true);
+		page.getCounter().reset();
+		long start = System.nanoTime();
+		checks.runAcopChecks();
+		long millis = (System.nanoTime() - start) / 1000000;
+		System.out.println(String.format("%-9s %-9s %-5s %9d %9d %9d", size, mode, rule == null ? "all" : rule,
+				page.getCounter().getCount(), checks.getFindings().size(), millis));
+	}
+}
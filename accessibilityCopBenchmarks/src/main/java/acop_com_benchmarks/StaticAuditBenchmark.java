@@ -0,0 +1,64 @@
+package acop_com_benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acop_com_pages.AcopFinding;
+import acop_com_pages.StaticHtmlAuditor;
+
+/**
+ * Latency of auditing a synthetic html file with StaticHtmlAuditor, no browser involved
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.apache.commons.logging.Log=acop_com_benchmarks.BenchmarkLog")
+public class StaticAuditBenchmark {
+
+	@Param({ "100", "1000", "10000", "50000" })
+	public int elements;
+
+	private File directory;
+	private File page;
+	private StaticHtmlAuditor auditor;
+
+	@Setup(Level.Trial)
+	public void write() throws IOException {
+		directory = File.createTempFile("acop-bench", "");
+		if (!directory.delete() || !directory.mkdir())
+			throw new IOException("Could not create directory " + directory);
+		page = new SyntheticPage(elements).write(directory);
+		auditor = new StaticHtmlAuditor();
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() {
+		page.delete();
+		new File(directory, SyntheticPage.FRAME_PAGE).delete();
+		directory.delete();
+	}
+
+	@Benchmark
+	public List<AcopFinding> audit() throws IOException {
+		return auditor.audit(page);
+	}
+}
@@ -0,0 +1,167 @@
+package acop_com_benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates self contained HTML pages with a given number of elements, mixing
+ * everything the built in rules look at - images, image inputs, image maps,
+ * links, headings, tables with headers, iframes, visual formatting and flashing content.
+ * Roughly one element in four fails its rule, so both the passing and the
+ * failing path of every rule are exercised. Pages are deterministic: the same
+ * size always gives the same page.
+ *
+ */
+public class SyntheticPage {
+
+	/** page loaded by the iframes, written next to every generated page */
+	static final String FRAME_PAGE = "frame.html";
+
+	private static final int MAX_IFRAMES = 20;
+	private static final int[] HEADING_LEVELS = { 1, 2, 4, 3 };
+
+	private final int elements;
+	private final StringBuilder html = new StringBuilder();
+	private int written = 0;
+
+	/**
+	 * @param elements
+	 *            number of elements in the body of the page
+	 */
+	public SyntheticPage(int elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * Writes the page (and the page its iframes load) to a directory
+	 *
+	 * @return the generated page
+	 */
+	public File write(File directory) throws IOException {
+		write(new File(directory, FRAME_PAGE), "<html lang=\"en\"><head><title>frame</title></head>"
+				+ "<body><p>frame</p></body></html>");
+		File page = new File(directory, "page-" + elements + ".html");
+		write(page, toHtml());
+		return page;
+	}
+
+	/**
+	 * @return the page markup
+	 */
+	public String toHtml() {
+		html.setLength(0);
+		written = 0;
+		// no lang attribute and no DOCTYPE, so rules 8 and 10 report a finding
+		html.append("<html><head><title>Synthetic page with ").append(elements).append(" elements</title></head>\n<body>\n");
+		int iframes = 0;
+		for (int block = 0; written < elements; block++) {
+			switch (block % 6) {
+			case 0:
+				image(block);
+				break;
+			case 1:
+				link(block);
+				break;
+			case 2:
+				imageInput(block);
+				break;
+			case 3:
+				heading(block);
+				table(block);
+				break;
+			case 4:
+				imageMap(block);
+				break;
+			default:
+				if (block % 60 == 5 && iframes < MAX_IFRAMES) {
+					iframe(block);
+					iframes++;
+				} else {
+					formatting(block);
+				}
+			}
+		}
+		html.append("<marquee>flashing</marquee>\n</body></html>\n");
+		return html.toString();
+	}
+
+	private void image(int block) {
+		html.append("<img src=\"images/").append(block).append(".png\"");
+		if (block % 4 != 0)
+			html.append(" alt=\"image ").append(block).append('"');
+		html.append(">\n");
+		written++;
+	}
+
+	private void link(int block) {
+		html.append("<a href=\"page").append(block).append(".html\">");
+		if (block % 4 != 1)
+			html.append("link ").append(block);
+		html.append("</a>\n");
+		written++;
+	}
+
+	private void imageInput(int block) {
+		html.append("<input type=\"image\" src=\"buttons/").append(block).append(".png\"");
+		if (block % 4 != 2)
+			html.append(" alt=\"button ").append(block).append('"');
+		html.append(">\n");
+		written++;
+	}
+
+	/**
+	 * h1, h2, h4, h3 repeated - the h4 skips a level - with every fifth heading empty
+	 */
+	private void heading(int block) {
+		int level = HEADING_LEVELS[(block / 6) % HEADING_LEVELS.length];
+		html.append("<h").append(level).append('>');
+		if ((block / 6) % 5 != 2)
+			html.append("section ").append(block);
+		html.append("</h").append(level).append(">\n");
+		written++;
+	}
+
+	private void table(int block) {
+		html.append("<table");
+		if (block % 4 != 3)
+			html.append(" summary=\"table ").append(block).append('"');
+		html.append("><tr><th scope=\"col\">name</th><th>value</th></tr>"
+				+ "<tr><td>").append(block).append("</td><td>").append(block * 2).append("</td></tr></table>\n");
+		written += 7;
+	}
+
+	private void imageMap(int block) {
+		html.append("<map name=\"map").append(block).append("\"><area shape=\"rect\" coords=\"0,0,10,10\" href=\"area")
+				.append(block).append(".html\"");
+		if (block % 8 != 4)
+			html.append(" alt=\"area ").append(block).append('"');
+		html.append("></map>\n");
+		written += 2;
+	}
+
+	private void iframe(int block) {
+		html.append("<iframe src=\"").append(FRAME_PAGE).append('"');
+		if (block % 120 != 5)
+			html.append(" title=\"frame ").append(block).append('"');
+		html.append("></iframe>\n");
+		written++;
+	}
+
+	private void formatting(int block) {
+		html.append(block % 2 == 0 ? "<p><b>bold " : "<p><i>italic ").append(block)
+				.append(block % 2 == 0 ? "</b></p>\n" : "</i></p>\n");
+		written += 2;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+}